@@ -0,0 +1,97 @@
+package simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BenchmarkModels provides the models that the simulation benchmarks run on: the models shipped in
+ * models/, and synthetic models whose size can be scaled.
+ *
+ * A synthetic model is named "synthetic-n". Its states have n switches, all off initially, and every
+ * transition turns exactly one switch on or off, so a state has n successors and the number of
+ * fields, SAT variables and clauses grows with n.
+ */
+public class BenchmarkModels {
+    private final static String SYNTHETIC_PREFIX = "synthetic-";
+
+    /**
+     * copy writes the model named model to a new file in dir, which SimulationManager.initialize
+     * can load.
+     * @param String model, a path in models/ or the name of a synthetic model
+     * @param File dir
+     * @return File
+     * @throws IOException if the model could not be written.
+     */
+    public static File copy(String model, File dir) throws IOException {
+        File file = File.createTempFile("bench_", ".als", dir);
+        file.deleteOnExit();
+        if (model.startsWith(SYNTHETIC_PREFIX)) {
+            Files.write(file.toPath(), getSyntheticModel(getSwitches(model)).getBytes());
+        } else {
+            Files.copy(new File(model).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /**
+     * getUntilConstraint returns a breakpoint that is reachable in a few transitions of model.
+     * @param String model
+     * @return String
+     */
+    public static String getUntilConstraint(String model) {
+        if (model.startsWith(SYNTHETIC_PREFIX)) {
+            return String.format("s0 = On and s%d = On", getSwitches(model) - 1);
+        }
+        switch (new File(model).getName()) {
+            case "river_crossing.als":
+                return "far = Object";
+            case "even_odd.als":
+                return "i = 6";
+            case "switch.als":
+                return "a = Off and b = On";
+            default:
+                throw new IllegalArgumentException(String.format("No until constraint for %s.", model));
+        }
+    }
+
+    private static int getSwitches(String model) {
+        return Integer.parseInt(model.substring(SYNTHETIC_PREFIX.length()));
+    }
+
+    private static String getSyntheticModel(int switches) {
+        List<String> fields = new ArrayList<>();
+        List<String> init = new ArrayList<>();
+        List<String> toggles = new ArrayList<>();
+        for (int i = 0; i < switches; i++) {
+            fields.add(String.format("    s%d: Switch", i));
+            init.add(String.format("    s.s%d = Off", i));
+            List<String> toggle = new ArrayList<>();
+            for (int j = 0; j < switches; j++) {
+                toggle.add(String.format(i == j ? "sprime.s%d != s.s%d" : "sprime.s%d = s.s%d", j, j));
+            }
+            toggles.add(String.format("    (%s)", String.join(" and ", toggle)));
+        }
+        return String.join("\n",
+            "abstract sig Switch {}",
+            "",
+            "one sig On, Off extends Switch {}",
+            "",
+            "sig State {",
+            String.join(",\n", fields),
+            "}",
+            "",
+            "pred init[s: State] {",
+            String.join("\n", init),
+            "}",
+            "",
+            "pred next[s, sprime: State] {",
+            String.join(" or\n", toggles),
+            "}",
+            ""
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package simulation;
+
+import edu.mit.csail.sdg.ast.Sig.PrimSig;
+
+import alloy.SigData;
+import state.StateDictionary;
+import state.StateGraph;
+import state.StateNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GraphBenchmark measures the work that SimulationManager.printGraph hands to the render thread: the
+ * state tree DOT string for Graphviz, and the in-process layout and rendering of the state tree.
+ *
+ * The state tree is a path through all states in which every state also has an edge back to the
+ * state two before it, so that the layout has to route edges between layers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+    @Param({"10", "100", "1000"})
+    public int nodes;
+
+    private StateGraph graph;
+    private StateTreeLayout layout;
+    private StateNode current;
+
+    @Setup
+    public void createGraph() {
+        PrimSig state = new PrimSig("State");
+        state.addField("f", new PrimSig("Value"));
+        SigData sigData = new SigData(state);
+        StateDictionary dictionary = new StateDictionary(sigData);
+
+        List<StateNode> path = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            StateNode node = new StateNode(sigData, null, dictionary);
+            node.addValueToField("f", "Value_" + i);
+            path.add(node);
+        }
+
+        graph = new StateGraph();
+        layout = new StateTreeLayout();
+        graph.addListener(layout);
+        graph.initWithNodes(path);
+        for (int i = 2; i < nodes; i++) {
+            graph.addNodes(path.get(i), path.subList(i - 2, i - 1));
+        }
+        current = path.get(nodes / 2);
+    }
+
+    @Benchmark
+    public String printGraph_dot() {
+        return graph.getStateTreeDOTString(current);
+    }
+
+    @Benchmark
+    public RenderedGraph printGraph_layout() {
+        return layout.render("state_tree", current);
+    }
+}
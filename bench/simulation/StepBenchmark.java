@@ -0,0 +1,70 @@
+package simulation;
+
+import edu.mit.csail.sdg.translator.A4Solution;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StepBenchmark measures stepping a loaded model forward, and extracting the states of a solution.
+ *
+ * Every step starts from the initial state. Resetting to it is part of the setup, not of the
+ * measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepBenchmark {
+    @Param({"models/switch.als", "models/river_crossing.als", "models/even_odd.als", "synthetic-4", "synthetic-16"})
+    public String model;
+
+    @Param({"1", "5", "10"})
+    public int steps;
+
+    private SimulationManager sm;
+    private A4Solution solution;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        sm = new SimulationManager();
+        // Graphs are not rendered, so that the measurement is only of the solving.
+        sm.setRenderPolicy(RenderPolicy.HEADLESS);
+        if (!sm.initialize(BenchmarkModels.copy(model, Files.createTempDirectory("aldb-bench").toFile()), false)) {
+            throw new IllegalStateException(String.format("Could not load %s.", model));
+        }
+        sm.performStep(steps);
+        solution = sm.getActiveSolution();
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        sm.setToInit();
+    }
+
+    @Benchmark
+    public boolean performStep() {
+        return sm.performStep(steps);
+    }
+
+    @Benchmark
+    public List<?> getStateNodesForA4Solution() {
+        return sm.getStateNodes(solution);
+    }
+}
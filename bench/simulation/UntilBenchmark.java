@@ -0,0 +1,61 @@
+package simulation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UntilBenchmark measures running a loaded model from its initial state until a breakpoint is hit,
+ * with the sequential and the parallel bound search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UntilBenchmark {
+    private final static int LIMIT = 10;
+
+    @Param({"models/switch.als", "models/river_crossing.als", "models/even_odd.als", "synthetic-4", "synthetic-16"})
+    public String model;
+
+    @Param({"0", "4"})
+    public int searchThreads;
+
+    private SimulationManager sm;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        sm = new SimulationManager();
+        // Graphs are not rendered, so that the measurement is only of the solving.
+        sm.setRenderPolicy(RenderPolicy.HEADLESS);
+        if (!sm.initialize(BenchmarkModels.copy(model, Files.createTempDirectory("aldb-bench").toFile()), false)) {
+            throw new IllegalStateException(String.format("Could not load %s.", model));
+        }
+        sm.getConstraintManager().addConstraint(BenchmarkModels.getUntilConstraint(model));
+        sm.setSearchThreads(searchThreads);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        sm.setToInit();
+    }
+
+    @Benchmark
+    public boolean performUntil() {
+        return sm.performUntil(LIMIT);
+    }
+}
@@ -0,0 +1,86 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig.PrimSig;
+
+import alloy.SigData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StateGraphBenchmark measures adding a path of distinct states to a StateGraph, and adding the same
+ * path again, in which case every state is already in the graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateGraphBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int nodes;
+
+    private SigData sigData;
+    private StateDictionary dictionary;
+    private StateGraph graph;
+    private List<StateNode> path;
+    private List<StateNode> duplicatePath;
+
+    @Setup(Level.Trial)
+    public void createSig() {
+        PrimSig state = new PrimSig("State");
+        PrimSig value = new PrimSig("Value");
+        state.addField("f", value);
+        state.addField("g", value);
+        sigData = new SigData(state);
+        dictionary = new StateDictionary(sigData);
+    }
+
+    @Setup(Level.Invocation)
+    public void createNodes() {
+        graph = new StateGraph();
+        path = createPath();
+        duplicatePath = createPath();
+    }
+
+    @Benchmark
+    public StateGraph addNodes() {
+        graph.initWithNodes(path.subList(0, 1));
+        graph.addNodes(path.get(0), path.subList(1, path.size()));
+        return graph;
+    }
+
+    @Benchmark
+    public StateGraph addNodes_existing() {
+        graph.initWithNodes(path.subList(0, 1));
+        graph.addNodes(path.get(0), path.subList(1, path.size()));
+        graph.addNodes(duplicatePath.get(0), duplicatePath.subList(1, duplicatePath.size()));
+        return graph;
+    }
+
+    private List<StateNode> createPath() {
+        List<StateNode> created = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            StateNode node = new StateNode(sigData, null, dictionary);
+            node.addValueToField("f", "Value_" + (i % 100));
+            node.addValueToField("g", "Value_" + (i / 100));
+            created.add(node);
+        }
+        return created;
+    }
+}
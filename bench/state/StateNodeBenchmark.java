@@ -0,0 +1,73 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig.PrimSig;
+
+import alloy.ParsingConf;
+import alloy.SigData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * StateNodeBenchmark measures generating the init predicate of a state, which every step from it
+ * does, and the diff of two states, which every displayed step does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateNodeBenchmark {
+    @Param({"2", "16"})
+    public int fields;
+
+    @Param({"1", "32"})
+    public int tuplesPerField;
+
+    private StateNode node;
+    private StateNode other;
+
+    @Setup
+    public void createNodes() {
+        PrimSig state = new PrimSig("State");
+        PrimSig value = new PrimSig("Value");
+        for (int i = 0; i < fields; i++) {
+            state.addField("f" + i, value);
+        }
+        SigData sigData = new SigData(state);
+        StateDictionary dictionary = new StateDictionary(sigData);
+        ParsingConf conf = new ParsingConf();
+
+        node = new StateNode(sigData, conf, dictionary);
+        other = new StateNode(sigData, conf, dictionary);
+        for (int i = 0; i < fields; i++) {
+            for (int j = 0; j < tuplesPerField; j++) {
+                node.addValueToField("f" + i, "Value_" + j);
+                // Half of the fields differ between the two states.
+                other.addValueToField("f" + i, "Value_" + (i % 2 == 0 ? j : j + 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public String getAlloyInitString() {
+        return node.getAlloyInitString();
+    }
+
+    @Benchmark
+    public String getDiffString() {
+        return node.getDiffString(other);
+    }
+}
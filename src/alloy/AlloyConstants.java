@@ -25,6 +25,12 @@ public class AlloyConstants {
     public static final String CONCRETE_SIG_REGEX = "(.*)_(\\d+)";
     public static final String OR = "or";
     public static final String BREAK_PREDICATE_NAME = "break";
+    public static final String UNTIL_HIT_SIG_NAME = "aldb_until";
+    public static final String UNTIL_HIT_FIELD_NAME = "hit";
+    public static final String SOLVE_CANCELLED = "Solve cancelled.";
+    public static final String SOLVE_TIMED_OUT = "Solve timed out after %d ms.";
+    public static final String SOLVES_ABANDONED = "%d stopped solve(s) still running in the background.";
+    public static final String SOLVES_BUSY = "Cannot solve: %d stopped solves are still running. Try again once they finish.";
 
     public static final Set<String> BITWIDTH_SCOPED_SIGS =
         Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(INT, SEQ)));
@@ -2,8 +2,11 @@ package alloy;
 
 import edu.mit.csail.sdg.alloy4.A4Reporter;
 import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4.ErrorAPI;
+import edu.mit.csail.sdg.alloy4.Util;
 import edu.mit.csail.sdg.alloy4.XMLNode;
 import edu.mit.csail.sdg.ast.Command;
+import edu.mit.csail.sdg.ast.Expr;
 import edu.mit.csail.sdg.ast.Sig;
 import edu.mit.csail.sdg.ast.Sig.Field;
 import edu.mit.csail.sdg.parser.CompUtil;
@@ -11,30 +14,472 @@ import edu.mit.csail.sdg.parser.CompModule;
 import edu.mit.csail.sdg.translator.A4Options;
 import edu.mit.csail.sdg.translator.A4Solution;
 import edu.mit.csail.sdg.translator.A4SolutionReader;
+import edu.mit.csail.sdg.translator.A4Tuple;
 import edu.mit.csail.sdg.translator.A4TupleSet;
 import edu.mit.csail.sdg.translator.TranslateAlloyToKodkod;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AlloyInterface {
     private static final A4Reporter reporter = new A4Reporter();
     private static final A4Options options = new A4Options();
 
+    // Generated models are frequently byte-identical to ones compiled earlier in the session (e.g. when
+    // replaying alt or reverse-step, re-validating a breakpoint, or stepping again from a state that was
+    // already stepped from), so recently compiled modules are kept in an LRU cache.
+    private static final int MODULE_CACHE_CAPACITY = 32;
+    private static final Map<String, CompModule> moduleCache =
+        new LinkedHashMap<String, CompModule>(MODULE_CACHE_CAPACITY, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompModule> eldest) {
+                return size() > MODULE_CACHE_CAPACITY;
+            }
+        };
+    private static long moduleCacheHits = 0;
+    private static long moduleCacheMisses = 0;
+    // Last-modified time of every submodule file imported by a cached module. The cache key only
+    // covers the main module, so a cached module is recompiled once one of its imports changes.
+    private static final Map<CompModule, Map<String, Long>> moduleImports = new WeakHashMap<>();
+    // Source text (null if read from the file) and path of every compiled module, so that solvers
+    // racing in a SolverPortfolio can each compile their own copy.
+    private static final Map<CompModule, String[]> moduleSources =
+        Collections.synchronizedMap(new WeakHashMap<CompModule, String[]>());
+    private static volatile SolverPortfolio portfolio; // races solvers if set
+
+    // Commands are translated and solved on their own threads, so that the caller can stop waiting for
+    // a solve that is cancelled or times out. Alloy only checks for cancellation until the SAT solver
+    // starts, so a solve that is stopped later keeps its thread busy until it finishes. Once as many
+    // of those are running as there are processors, new solves are refused.
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    private static final int MAX_ABANDONED_SOLVES = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService solveExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "aldb-solve");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<Future<A4Solution>> activeSolves = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong solveCount = new AtomicLong(); // commands submitted to the solver
+    private static final AtomicInteger abandonedSolves = new AtomicInteger(); // stopped but still running
+    private static volatile long solveTimeout; // in milliseconds, or 0 for none
+    private static volatile SolveProgressListener progressListener;
+    private static volatile Thread progressThread; // thread whose solves are reported to progressListener
+
     public static CompModule compile(String modelPath) throws Err {
-        return CompUtil.parseEverything_fromFile(reporter, null, modelPath);
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.PARSE);
+        CompModule module;
+        try {
+            module = CompUtil.parseEverything_fromFile(reporter, null, modelPath);
+        } finally {
+            timer.stop();
+        }
+        moduleSources.put(module, new String[] { null, modelPath });
+        return module;
+    }
+
+    /**
+     * compileFromString parses Alloy source that has not been written to disk.
+     *
+     * The source is registered with the parser under `modelPath`, so the file at
+     * `modelPath` does not need to exist, but any submodules opened by the source
+     * are still resolved relative to the directory containing `modelPath`.
+     *
+     * Compiling the same source under the same path again returns the cached module, unless a
+     * submodule file it imports has been modified since.
+     * @param String modelText, String modelPath
+     * @return CompModule
+     * @throws Err if the source fails to parse or typecheck.
+     */
+    public static CompModule compileFromString(String modelText, String modelPath) throws Err {
+        String key = getModuleCacheKey(modelText, modelPath);
+        synchronized (moduleCache) {
+            CompModule cached = moduleCache.get(key);
+            if (cached != null && importsUnchanged(cached)) {
+                moduleCacheHits++;
+                return cached;
+            }
+            moduleCache.remove(key);
+            moduleCacheMisses++;
+        }
+
+        CompModule module = compileFromStringUncached(modelText, modelPath);
+        Map<String, Long> imports = getImportStamps(module, modelPath);
+        synchronized (moduleCache) {
+            moduleCache.put(key, module);
+            moduleImports.put(module, imports);
+        }
+        return module;
+    }
+
+    /**
+     * compileFromStringUncached parses Alloy source like compileFromString, but always returns a
+     * newly compiled module. Threads that solve at the same time each need their own module.
+     * @param String modelText, String modelPath
+     * @return CompModule
+     * @throws Err if the source fails to parse or typecheck.
+     */
+    public static CompModule compileFromStringUncached(String modelText, String modelPath) throws Err {
+        Map<String, String> loaded = new HashMap<>();
+        loaded.put(Util.canon(modelPath), modelText);
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.PARSE);
+        CompModule module;
+        try {
+            module = CompUtil.parseEverything_fromFile(reporter, loaded, modelPath);
+        } finally {
+            timer.stop();
+        }
+        moduleSources.put(module, new String[] { modelText, modelPath });
+        return module;
+    }
+
+    /**
+     * setSolveTimeout sets how long a single solve may take before it is cancelled.
+     * @param long timeout, in milliseconds, or 0 for no timeout
+     */
+    public static void setSolveTimeout(long timeout) {
+        solveTimeout = timeout;
+    }
+
+    public static long getSolveTimeout() {
+        return solveTimeout;
+    }
+
+    /**
+     * setProgressListener reports the progress of solves started by the calling thread to listener
+     * while they run.
+     * @param SolveProgressListener listener, or null to stop reporting progress
+     */
+    public static void setProgressListener(SolveProgressListener listener) {
+        progressListener = listener;
+        progressThread = Thread.currentThread();
+    }
+
+    /**
+     * cancelSolves cancels every solve that is running. The callers waiting for them fail immediately
+     * with an Err, and the solves stop at Alloy's next progress callback.
+     * @return int, the number of solves cancelled
+     */
+    public static int cancelSolves() {
+        int cancelled = 0;
+        for (Future<A4Solution> solve : activeSolves) {
+            if (solve.cancel(true)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * getAbandonedSolves returns how many solves that were cancelled or timed out are still running,
+     * because the SAT solver had already started when they were stopped.
+     * @return int
+     */
+    public static int getAbandonedSolves() {
+        return abandonedSolves.get();
+    }
+
+    /**
+     * setSolverPortfolio makes run and runWithConstraint race the solvers of portfolio, or use the
+     * default solver alone if portfolio is null.
+     * @param SolverPortfolio portfolio
+     */
+    public static void setSolverPortfolio(SolverPortfolio portfolio) {
+        AlloyInterface.portfolio = portfolio;
+    }
+
+    public static SolverPortfolio getSolverPortfolio() {
+        return portfolio;
+    }
+
+    /**
+     * createSolverPortfolio returns a portfolio of every solver that can run in process, sharing the
+     * options of the default solver.
+     * @return SolverPortfolio
+     */
+    public static SolverPortfolio createSolverPortfolio() {
+        return new SolverPortfolio(options, SolverPortfolio.getDefaultSolvers());
+    }
+
+    /**
+     * getSolveCount returns how many commands have been submitted to the solver in this session.
+     * @return long
+     */
+    public static long getSolveCount() {
+        return solveCount.get();
+    }
+
+    public static long getModuleCacheHits() {
+        synchronized (moduleCache) {
+            return moduleCacheHits;
+        }
+    }
+
+    public static long getModuleCacheMisses() {
+        synchronized (moduleCache) {
+            return moduleCacheMisses;
+        }
+    }
+
+    public static void clearModuleCache() {
+        synchronized (moduleCache) {
+            moduleCache.clear();
+            moduleImports.clear();
+            moduleCacheHits = 0;
+            moduleCacheMisses = 0;
+        }
     }
 
     public static A4Solution run(CompModule module) throws Err {
-        List<Command> commands = module.getAllCommands();
+        return solve(module, (m, opts) -> {
+            List<Command> commands = m.getAllCommands();
+
+            // Use the command injected by us at the end of the input
+            // model. This ensures any extraneous commands in the input model are
+            // not run.
+            return execute(m, commands.get(commands.size() - 1), opts);
+        });
+    }
+
+    /**
+     * runWithConstraint runs the command injected at the end of module with the Alloy expression
+     * constraint added to it. Only the expression is parsed, against the already compiled module, so
+     * a compiled module can be solved repeatedly under different constraints.
+     * @param CompModule module, String constraint
+     * @return A4Solution
+     * @throws Err if the constraint fails to parse or typecheck, or the command fails to run.
+     */
+    public static A4Solution runWithConstraint(CompModule module, String constraint) throws Err {
+        return solve(module, (m, opts) -> {
+            List<Command> commands = m.getAllCommands();
+            Command command = commands.get(commands.size() - 1);
+            Expr expr = CompUtil.parseOneExpression_fromString(m, constraint);
+            return execute(m, command.change(command.formula.and(expr)), opts);
+        });
+    }
 
-        // Use the command injected by us at the end of the input
-        // model. This ensures any extraneous commands in the input model are
-        // not run.
-        Command command = commands.get(commands.size() - 1);
-        return TranslateAlloyToKodkod.execute_command(
-          reporter, module.getAllReachableSigs(), command, options);
+    // ModuleRun runs a command of a compiled module with the given options.
+    private interface ModuleRun {
+        A4Solution run(CompModule module, A4Options options) throws Err;
+    }
+
+    /**
+     * solve runs a command of module with the default solver, or races the solvers of the portfolio
+     * if one is set, giving every racer but the first its own copy of the module.
+     * @param CompModule module, ModuleRun run
+     * @return A4Solution
+     * @throws Err if the command fails to run.
+     */
+    private static A4Solution solve(CompModule module, ModuleRun run) throws Err {
+        SolverPortfolio current = portfolio;
+        String[] source = moduleSources.get(module);
+        if (current == null || source == null) {
+            return run.run(module, options);
+        }
+        return current.solve(source[1], (opts, racer) -> {
+            if (racer == 0) {
+                return run.run(module, opts);
+            }
+            CompModule copy = (source[0] == null) ?
+                                  CompUtil.parseEverything_fromFile(reporter, null, source[1]) :
+                                  compileFromStringUncached(source[0], source[1]);
+            return run.run(copy, opts);
+        });
+    }
+
+    /**
+     * execute translates and solves command on a solve thread, waiting for it until it is cancelled or
+     * the solve timeout is reached. If the calling thread registered a progress listener, progress is
+     * reported after a second and then at doubling intervals.
+     * @param CompModule module, Command command, A4Options opts
+     * @return A4Solution
+     * @throws Err if the command fails to run, was cancelled or timed out, or too many stopped solves
+     * are still running.
+     */
+    private static A4Solution execute(CompModule module, Command command, A4Options opts) throws Err {
+        int abandoned = abandonedSolves.get();
+        if (abandoned >= MAX_ABANDONED_SOLVES) {
+            throw new ErrorAPI(String.format(AlloyConstants.SOLVES_BUSY, abandoned));
+        }
+        SolveReporter solveReporter = new SolveReporter();
+        solveCount.incrementAndGet();
+        Future<A4Solution> solve = solveExecutor.submit(() -> {
+            solveReporter.begin();
+            try {
+                return TranslateAlloyToKodkod.execute_command(solveReporter, module.getAllReachableSigs(), command, opts);
+            } finally {
+                solveReporter.end();
+                solveReporter.finish();
+            }
+        });
+        activeSolves.add(solve);
+        SolveProgressListener listener = (Thread.currentThread() == progressThread) ? progressListener : null;
+        long timeout = solveTimeout;
+        long start = System.currentTimeMillis();
+        long nextProgress = PROGRESS_INTERVAL_MILLIS; // elapsed time of the next progress report
+        try {
+            while (true) {
+                long elapsed = System.currentTimeMillis() - start;
+                if (timeout > 0 && elapsed >= timeout) {
+                    solve.cancel(true);
+                    throw stopped(module, solveReporter, listener, String.format(AlloyConstants.SOLVE_TIMED_OUT, timeout));
+                }
+                if (listener != null && elapsed >= nextProgress) {
+                    listener.solving(solveReporter.getStatus(), elapsed);
+                    // Reports get less frequent the longer a solve runs.
+                    nextProgress *= 2;
+                }
+                long wait = nextProgress - elapsed;
+                if (timeout > 0) {
+                    wait = Math.min(wait, timeout - elapsed);
+                }
+                try {
+                    return solve.get(Math.max(wait, 1), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // Check for a timeout or report progress.
+                }
+            }
+        } catch (CancellationException e) {
+            throw stopped(module, solveReporter, listener, AlloyConstants.SOLVE_CANCELLED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            solve.cancel(true);
+            throw stopped(module, solveReporter, listener, AlloyConstants.SOLVE_CANCELLED);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Err) {
+                throw (Err) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            activeSolves.remove(solve);
+        }
+    }
+
+    /**
+     * stopped returns the Err for a solve of module that was cancelled or timed out, after telling
+     * listener about it and how many stopped solves are still running. The module is removed from the
+     * module cache, so that the solve, which may still be running on it, does not share it with later
+     * commands.
+     * @param CompModule module, SolveReporter solveReporter, SolveProgressListener listener, String message
+     * @return Err
+     */
+    private static Err stopped(CompModule module, SolveReporter solveReporter, SolveProgressListener listener, String message) {
+        synchronized (moduleCache) {
+            moduleCache.values().remove(module);
+        }
+        solveReporter.abandon();
+        if (listener != null) {
+            int abandoned = abandonedSolves.get();
+            listener.stopped(abandoned == 0 ? message : message + " " + String.format(AlloyConstants.SOLVES_ABANDONED, abandoned));
+        }
+        return new ErrorAPI(message);
+    }
+
+    /**
+     * SolveReporter records the progress of a solve, and aborts it at the next callback once the
+     * thread solving it has been interrupted by a cancellation. It also times the translate and solve
+     * phases of the solve, which are separated by the solve callback.
+     */
+    private static class SolveReporter extends A4Reporter {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int FINISHED = 2;
+        private static final int ABANDONED = 3;
+
+        private volatile String status = "translating";
+        private PhaseStats.Timer timer; // timer of the current phase, only used on the solve thread
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        public void begin() {
+            state.compareAndSet(PENDING, RUNNING);
+            timer = PhaseStats.start(PhaseStats.Phase.TRANSLATE);
+        }
+
+        /**
+         * abandon counts the solve as abandoned if its thread is still running it once the caller has
+         * stopped waiting for it. A solve that has not started yet is never run, or stops at its first
+         * callback, so it is not counted.
+         */
+        public void abandon() {
+            abandonedSolves.incrementAndGet();
+            if (!state.compareAndSet(RUNNING, ABANDONED)) {
+                abandonedSolves.decrementAndGet();
+            }
+        }
+
+        /**
+         * finish is called on the solve thread once the solve has returned or failed.
+         */
+        public void finish() {
+            if (!state.compareAndSet(RUNNING, FINISHED)) {
+                abandonedSolves.decrementAndGet();
+            }
+        }
+
+        public void end() {
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void scope(String msg) {
+            checkCancelled();
+        }
+
+        public void bound(String msg) {
+            checkCancelled();
+        }
+
+        public void translate(String solver, int bitwidth, int maxseq, int mintrace, int maxtrace, int skolemDepth, int symmetry, String strat) {
+            checkCancelled();
+            status = String.format("translating for %s", solver);
+        }
+
+        public void solve(int plength, int primaryVars, int totalVars, int clauses) {
+            checkCancelled();
+            status = String.format("solving %d variables (%d primary) and %d clauses", totalVars, primaryVars, clauses);
+            end();
+            timer = PhaseStats.start(PhaseStats.Phase.SOLVE);
+            timer.setProblem(primaryVars, totalVars, clauses);
+        }
+
+        private static void checkCancelled() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new ErrorAPI(AlloyConstants.SOLVE_CANCELLED);
+            }
+        }
     }
 
     /**
@@ -47,6 +492,86 @@ public class AlloyInterface {
         return A4SolutionReader.read(new ArrayList<Sig>(), new XMLNode(file));
     }
 
+    /**
+     * getUntilHitIndex returns the index of the state recorded as the first breakpoint hit in a solution
+     * to a model generated by AlloyUtils.annotatedTransitionSystemUntilWithin.
+     * @param A4Solution sol
+     * @return int, or -1 if the solution does not record a hit.
+     */
+    public static int getUntilHitIndex(A4Solution sol) {
+        Sig hitSig = getSigFromA4Solution(sol, AlloyConstants.UNTIL_HIT_SIG_NAME);
+        if (hitSig == null) {
+            return -1;
+        }
+
+        for (Field field : hitSig.getFields()) {
+            if (!field.label.equals(AlloyConstants.UNTIL_HIT_FIELD_NAME)) {
+                continue;
+            }
+            for (A4Tuple tuple : sol.eval(field)) {
+                return Integer.parseInt(tuple.atom(1).split(AlloyConstants.ALLOY_ATOM_SEPARATOR)[1]);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * getModuleCacheKey hashes model source together with the path it is compiled under, since
+     * the path determines how imported submodules are resolved.
+     * @param String modelText, String modelPath
+     * @return String
+     */
+    private static String getModuleCacheKey(String modelText, String modelPath) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Util.canon(modelPath).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(modelText.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * getImportStamps returns the last-modified time of the file of every submodule that module
+     * imports, other than the main module itself, whose source is part of the cache key.
+     * @param CompModule module, String modelPath
+     * @return Map<String, Long>
+     */
+    private static Map<String, Long> getImportStamps(CompModule module, String modelPath) {
+        String mainPath = Util.canon(modelPath);
+        Map<String, Long> stamps = new HashMap<>();
+        for (CompModule imported : module.getAllReachableModules()) {
+            String filename = imported.span().filename;
+            if (!filename.equals(mainPath)) {
+                stamps.put(filename, new File(filename).lastModified());
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * importsUnchanged returns true if no submodule file imported by a cached module has been
+     * modified since it was compiled. Must be called while holding the moduleCache lock.
+     * @param CompModule module
+     * @return boolean
+     */
+    private static boolean importsUnchanged(CompModule module) {
+        Map<String, Long> stamps = moduleImports.get(module);
+        if (stamps == null) {
+            return false;
+        }
+        for (Map.Entry<String, Long> stamp : stamps.entrySet()) {
+            if (new File(stamp.getKey()).lastModified() != stamp.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Sig getSigFromA4Solution(A4Solution sol, String sigName) {
         for (Sig sig : sol.getAllReachableSigs()) {
             if (sig.toString().equals(AlloyUtils.getLocallyNamespacedSigName(sigName))) {
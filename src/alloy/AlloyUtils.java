@@ -93,6 +93,82 @@ public class AlloyUtils {
     public static String annotatedTransitionSystemForced(String model, ParsingConf parsingConf, int steps) {
         return annotatedTransitionSystem(model, parsingConf, steps, "transitionForced");
     }
+
+    /**
+     * annotatedTransitionSystemUntilWithin generates Alloy code in which a breakpoint is hit at or before
+     * the last of `steps` transitions, rather than exactly at the last one.
+     *
+     * The first state (after the initial state) that hits a breakpoint is recorded in aldb_until.hit, and
+     * the transition relation only constrains the states leading up to it. The states after the hit are
+     * left unconstrained, so the model is satisfiable for `steps` iff the model generated by
+     * annotatedTransitionSystemUntil is satisfiable for some number of steps <= `steps`. This makes a
+     * single solve sufficient to decide whether a breakpoint is reachable within a limit.
+     * @param String model, ParsingConf parsingConf, int steps
+     * @return String
+     */
+    public static String annotatedTransitionSystemUntilWithin(String model, ParsingConf parsingConf, int steps) {
+        String hit = String.format("%s.%s", AlloyConstants.UNTIL_HIT_SIG_NAME, AlloyConstants.UNTIL_HIT_FIELD_NAME);
+        String hitSig = String.format(
+            "one sig %s { %s: one %s }",
+            AlloyConstants.UNTIL_HIT_SIG_NAME, AlloyConstants.UNTIL_HIT_FIELD_NAME, parsingConf.getStateSigName()
+        );
+        String hitConstraint = String.format(
+            "%s[%s] and %s != aldb_order/first and (all s: aldb_order/prevs[%s] - aldb_order/first | not %s[s])",
+            AlloyConstants.BREAK_PREDICATE_NAME, hit, hit, hit, AlloyConstants.BREAK_PREDICATE_NAME
+        );
+        return annotatedTransitionSystem(
+            model + "\n\n" + hitSig, parsingConf, steps, hitConstraint, String.format("aldb_order/prevs[%s]", hit)
+        );
+    }
+    /**
+     * getUnconstrainedInitPredicate returns an init predicate that holds for every state. A model
+     * generated with it serves as a template for stepping from any state: the state is pinned
+     * afterwards with the constraint from getFirstStateConstraint, so the template only needs to be
+     * compiled once per number of steps and path.
+     * @param ParsingConf parsingConf
+     * @return String
+     */
+    public static String getUnconstrainedInitPredicate(ParsingConf parsingConf) {
+        return makeStatePredicate(parsingConf.getInitPredicateName(), parsingConf.getStateSigName(), "");
+    }
+
+    /**
+     * getFirstStateConstraint returns an Alloy expression that applies stateConstraints, written in
+     * terms of a state s, to the first state of a transition system generated by annotatedTransitionSystem.
+     * @param String stateConstraints
+     * @return String
+     */
+    public static String getFirstStateConstraint(String stateConstraints) {
+        return getStateConstraint("aldb_order/first", stateConstraints);
+    }
+
+    /**
+     * getNextStateConstraint returns an Alloy expression that applies stateConstraints, written in
+     * terms of a state s, to the second state of a transition system generated by annotatedTransitionSystem.
+     * @param String stateConstraints
+     * @return String
+     */
+    public static String getNextStateConstraint(String stateConstraints) {
+        return getStateConstraint("aldb_order/first.(aldb_order/next)", stateConstraints);
+    }
+
+    /**
+     * getStateConstraint applies stateConstraints, one per line, to state. The constraints are joined
+     * into a single formula, because CompUtil.parseOneExpression_fromString fails on a block of
+     * several formulas when it typechecks it.
+     * @param String state, String stateConstraints
+     * @return String
+     */
+    private static String getStateConstraint(String state, String stateConstraints) {
+        List<String> constraints = new ArrayList<>();
+        for (String constraint : stateConstraints.split("\n")) {
+            if (!constraint.trim().isEmpty()) {
+                constraints.add(constraint.trim());
+            }
+        }
+        return String.format("let s = %s | {\n\t%s\n}", state, String.join(" and\n\t", constraints));
+    }
+
     /**
      * getBreakPredicate creates a predicate containing all breakpoints entered
      * by the user.
@@ -235,13 +311,23 @@ public class AlloyUtils {
      * 4. Add command to run state transitions.
      */
     private static String annotatedTransitionSystem(String model, ParsingConf parsingConf, int steps, String additionalConstraint) {
+        return annotatedTransitionSystem(model, parsingConf, steps, additionalConstraint, parsingConf.getStateSigName());
+    }
+
+    /**
+     * In this variant, the transition relation is only applied to states drawn from `transitionSources`.
+     */
+    private static String annotatedTransitionSystem(
+        String model, ParsingConf parsingConf, int steps, String additionalConstraint, String transitionSources
+    ) {
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.GENERATE);
         String stateSigName = parsingConf.getStateSigName();
         String initPredicateName = parsingConf.getInitPredicateName();
         String transitionRelationName = parsingConf.getTransitionRelationName();
         Map<String, Integer> additionalSigScopes = parsingConf.getAdditionalSigScopes();
         String additionalConstraintFact = additionalConstraint.trim().isEmpty() ? "" : String.format("fact { %s }" + "\n\n", additionalConstraint);
         String transitionRelationFact = String.format(
-            "fact { all s: %s, sprime: s.(aldb_order/next) { %s[s, sprime] } }" + "\n\n", stateSigName, transitionRelationName
+            "fact { all s: %s, sprime: s.(aldb_order/next) { %s[s, sprime] } }" + "\n\n", transitionSources, transitionRelationName
         );
         String sigScopes = String.format("run {  } for exactly %d %s", steps + 1, stateSigName);
         for (String sigScopeName : additionalSigScopes.keySet()) {
@@ -250,7 +336,7 @@ public class AlloyUtils {
                                      ", exactly %d %s";
             sigScopes += String.format(scopeFormat, additionalSigScopes.get(sigScopeName), sigScopeName);
         }
-        return String.format(
+        String generated = String.format(
             String.format("open util/ordering[%s] as aldb_order" + "\n\n", stateSigName) +
             model + "\n\n" +
             String.format("fact { %s[aldb_order/first] }" + "\n\n", initPredicateName) +
@@ -259,5 +345,7 @@ public class AlloyUtils {
             sigScopes,
             model
         );
+        timer.stop();
+        return generated;
     }
 }
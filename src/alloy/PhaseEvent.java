@@ -0,0 +1,29 @@
+package alloy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Event;
+
+/**
+ * PhaseEvent is the Java Flight Recorder event for one phase of a command, recorded by PhaseStats,
+ * so that sessions can be profiled with JFR.
+ */
+@Name("aldb.Phase")
+@Label("ALDB Phase")
+@Category("ALDB")
+@Description("A phase of an ALDB command, e.g. parsing, translating or solving a model")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Primary Variables")
+    int primaryVariables;
+
+    @Label("Variables")
+    int variables;
+
+    @Label("Clauses")
+    int clauses;
+}
@@ -0,0 +1,235 @@
+package alloy;
+
+/**
+ * PhaseStats times the phases of ALDB commands, from generating a model to rendering the graphs,
+ * and keeps a latency histogram for each phase together with the sizes of the SAT problems solved.
+ *
+ * Every timed phase is also recorded as a PhaseEvent for Java Flight Recorder.
+ */
+public class PhaseStats {
+    /**
+     * Phase is a timed phase of a command.
+     */
+    public enum Phase {
+        GENERATE("generate"), // generating the Alloy text of a model
+        PARSE("parse"), // parsing and typechecking a model
+        TRANSLATE("translate"), // translating a command to SAT
+        SOLVE("solve"), // SAT solving
+        EXTRACT("extract"), // extracting states from a solution
+        RENDER("render"); // laying out and rendering a graph
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Timer times one run of a phase. It is started by PhaseStats.start.
+     */
+    public static class Timer {
+        private final Phase phase;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long start;
+
+        private Timer(Phase phase) {
+            this.phase = phase;
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        /**
+         * setProblem records the size of the SAT problem solved in this phase.
+         * @param int primaryVariables, int variables, int clauses
+         */
+        public void setProblem(int primaryVariables, int variables, int clauses) {
+            event.primaryVariables = primaryVariables;
+            event.variables = variables;
+            event.clauses = clauses;
+            recordProblem(primaryVariables, variables, clauses);
+        }
+
+        /**
+         * stop records the time since the timer was started.
+         */
+        public void stop() {
+            long elapsed = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.getName();
+                event.commit();
+            }
+            record(phase, elapsed);
+        }
+    }
+
+    // Bucket 0 counts runs under 1 ms, and bucket i > 0 runs of [2^(i-1), 2^i) ms. The last bucket
+    // also counts all longer runs.
+    private static final int BUCKETS = 16;
+    private static final int BAR_WIDTH = 40;
+
+    private static final long[] counts = new long[Phase.values().length];
+    private static final long[] totalNanos = new long[Phase.values().length];
+    private static final long[] maxNanos = new long[Phase.values().length];
+    private static final long[][] histograms = new long[Phase.values().length][BUCKETS];
+    private static long problems;
+    private static long totalVariables;
+    private static long totalPrimaryVariables;
+    private static long totalClauses;
+    private static int maxVariables;
+    private static int maxClauses;
+
+    /**
+     * start starts timing a run of phase.
+     * @param Phase phase
+     * @return Timer
+     */
+    public static Timer start(Phase phase) {
+        return new Timer(phase);
+    }
+
+    /**
+     * getCount returns the number of recorded runs of phase.
+     * @param Phase phase
+     * @return long
+     */
+    public static synchronized long getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * getHistogram returns the number of runs of phase in every latency bucket.
+     * @param Phase phase
+     * @return long[]
+     */
+    public static synchronized long[] getHistogram(Phase phase) {
+        return histograms[phase.ordinal()].clone();
+    }
+
+    /**
+     * getProblemCount returns the number of SAT problems whose size has been recorded.
+     * @return long
+     */
+    public static synchronized long getProblemCount() {
+        return problems;
+    }
+
+    /**
+     * reset clears all recorded timings and problem sizes.
+     */
+    public static synchronized void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+            totalNanos[i] = 0;
+            maxNanos[i] = 0;
+            histograms[i] = new long[BUCKETS];
+        }
+        problems = 0;
+        totalVariables = 0;
+        totalPrimaryVariables = 0;
+        totalClauses = 0;
+        maxVariables = 0;
+        maxClauses = 0;
+    }
+
+    /**
+     * format returns a table of the phase latencies and SAT problem sizes, followed by the latency
+     * histogram of every phase that has run.
+     * @return String
+     */
+    public static synchronized String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-10s %8s %12s %10s %10s\n", "Phase", "Count", "Total (ms)", "Mean (ms)", "Max (ms)"));
+        for (Phase phase : Phase.values()) {
+            int i = phase.ordinal();
+            double mean = counts[i] == 0 ? 0 : toMillis(totalNanos[i]) / counts[i];
+            sb.append(String.format(
+                "%-10s %8d %12.1f %10.1f %10.1f\n",
+                phase.getName(), counts[i], toMillis(totalNanos[i]), mean, toMillis(maxNanos[i])
+            ));
+        }
+
+        if (problems > 0) {
+            sb.append(String.format(
+                "\nSAT problems: %d, mean %d variables (%d primary) and %d clauses, max %d variables and %d clauses\n",
+                problems, totalVariables / problems, totalPrimaryVariables / problems, totalClauses / problems,
+                maxVariables, maxClauses
+            ));
+        }
+
+        for (Phase phase : Phase.values()) {
+            long[] histogram = histograms[phase.ordinal()];
+            if (counts[phase.ordinal()] == 0) {
+                continue;
+            }
+            long largest = 0;
+            for (long count : histogram) {
+                largest = Math.max(largest, count);
+            }
+            sb.append(String.format("\n%s\n", phase.getName()));
+            for (int b = 0; b < BUCKETS; b++) {
+                if (histogram[b] == 0) {
+                    continue;
+                }
+                int width = (int) Math.max(1, histogram[b] * BAR_WIDTH / largest);
+                sb.append(String.format("  %-14s %8d %s\n", getBucketLabel(b), histogram[b], repeat('#', width)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static synchronized void record(Phase phase, long nanos) {
+        int i = phase.ordinal();
+        counts[i]++;
+        totalNanos[i] += nanos;
+        maxNanos[i] = Math.max(maxNanos[i], nanos);
+        histograms[i][getBucket(nanos)]++;
+    }
+
+    private static synchronized void recordProblem(int primaryVariables, int variables, int clauses) {
+        problems++;
+        totalPrimaryVariables += primaryVariables;
+        totalVariables += variables;
+        totalClauses += clauses;
+        maxVariables = Math.max(maxVariables, variables);
+        maxClauses = Math.max(maxClauses, clauses);
+    }
+
+    private static int getBucket(long nanos) {
+        long millis = nanos / 1000000;
+        int bucket = 0;
+        while (millis > 0 && bucket < BUCKETS - 1) {
+            millis >>= 1;
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String getBucketLabel(int bucket) {
+        if (bucket == 0) {
+            return "< 1 ms";
+        }
+        long lo = 1L << (bucket - 1);
+        if (bucket == BUCKETS - 1) {
+            return String.format(">= %d ms", lo);
+        }
+        return String.format("%d-%d ms", lo, 1L << bucket);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String repeat(char c, int n) {
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -9,14 +9,35 @@ import java.util.Set;
 
 public class SigData {
     private String label;
-    // Map of field name to Type.
-    private Map<String, Type> data;
+    // Map of field name to its type, in Alloy syntax.
+    private Map<String, String> types;
+    // Map of field name to its arity, including the State sig.
+    private Map<String, Integer> arities;
 
     public SigData(Sig sig) {
         label = sig.label;
-        data = new HashMap<>();
+        types = new HashMap<>();
+        arities = new HashMap<>();
         for (Sig.Field field : sig.getFields()) {
-            data.put(field.label, field.type());
+            Type type = field.type();
+            types.put(field.label, type.toString());
+            arities.put(field.label, type.arity());
+        }
+    }
+
+    /**
+     * This constructor recreates the SigData of a sig from the values returned by its getters, e.g.
+     * from a session snapshot, without an Alloy Sig.
+     * @param String label
+     * @param Map<String, String> types, the type of every field
+     * @param Map<String, Integer> arities, the arity of every field as returned by getArityForField
+     */
+    public SigData(String label, Map<String, String> types, Map<String, Integer> arities) {
+        this.label = label;
+        this.types = new HashMap<>(types);
+        this.arities = new HashMap<>();
+        for (Map.Entry<String, Integer> arity : arities.entrySet()) {
+            this.arities.put(arity.getKey(), arity.getValue() + 1);
         }
     }
 
@@ -25,27 +46,21 @@ public class SigData {
     }
 
     public Set<String> getFields() {
-        return data.keySet();
+        return types.keySet();
     }
 
     public String getTypeForField(String field) {
-        Type type = data.get(field);
-
-        if (type == null) {
-            return null;
-        }
-
-        return type.toString();
+        return types.get(field);
     }
 
     public int getArityForField(String field) {
-        Type type = data.get(field);
+        Integer arity = arities.get(field);
 
-        if (type == null) {
+        if (arity == null) {
             return 0;
         }
 
         // Subtract one from arity to ignore the default relation from the State sig.
-        return type.arity() - 1;
+        return arity - 1;
     }
 }
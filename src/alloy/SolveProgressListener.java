@@ -0,0 +1,21 @@
+package alloy;
+
+/**
+ * SolveProgressListener is notified while a solve is running, so that progress can be shown for long
+ * solves.
+ */
+public interface SolveProgressListener {
+    /**
+     * solving is called after a solve started by the listening thread has run for a second, and then at
+     * doubling intervals.
+     * @param String status, the latest progress reported by Alloy
+     * @param long elapsedMillis
+     */
+    void solving(String status, long elapsedMillis);
+
+    /**
+     * stopped is called when a solve started by the listening thread is cancelled or times out.
+     * @param String message
+     */
+    void stopped(String message);
+}
@@ -0,0 +1,236 @@
+package alloy;
+
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4.ErrorAPI;
+import edu.mit.csail.sdg.alloy4.ErrorFatal;
+import edu.mit.csail.sdg.translator.A4Options;
+import edu.mit.csail.sdg.translator.A4Options.SatSolver;
+import edu.mit.csail.sdg.translator.A4Solution;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SolverPortfolio races several SAT solvers on the same command and takes the first answer.
+ *
+ * Every race is won by one solver, and the wins are counted per model. Once a model has been raced
+ * RACES_PER_MODEL times, later commands on it are only solved by the solver that won most often.
+ * Solvers that fail on a command that another solver can run, e.g. JNI solvers whose native library
+ * is not available on this platform, are left out of later races.
+ */
+public class SolverPortfolio {
+    // Number of races on a model after which its best solver is used alone.
+    public static final int RACES_PER_MODEL = 3;
+
+    /**
+     * Run runs a command with the given options. Racer 0 may use the shared compiled module, while
+     * every other racer must use its own, as solvers run at the same time.
+     */
+    public interface Run {
+        A4Solution run(A4Options options, int racer) throws Err;
+    }
+
+    private final List<SatSolver> solvers;
+    private final A4Options baseOptions;
+    private final Set<SatSolver> failed = new HashSet<>();
+    private final Map<String, Map<String, Integer>> wins = new LinkedHashMap<>(); // model -> solver -> wins
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "aldb-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param A4Options baseOptions, the options every solver runs with apart from the solver itself
+     * @param List<SatSolver> solvers, the solvers to race
+     */
+    public SolverPortfolio(A4Options baseOptions, List<SatSolver> solvers) {
+        this.baseOptions = baseOptions;
+        this.solvers = new ArrayList<>(solvers);
+    }
+
+    /**
+     * getDefaultSolvers returns the solvers that Alloy can run in process, leaving out the ones that
+     * only write the problem to a file.
+     * @return List<SatSolver>
+     */
+    public static List<SatSolver> getDefaultSolvers() {
+        List<SatSolver> defaults = new ArrayList<>();
+        for (SatSolver solver : SatSolver.values()) {
+            if (solver != SatSolver.CNF && solver != SatSolver.KK) {
+                defaults.add(solver);
+            }
+        }
+        return defaults;
+    }
+
+    /**
+     * solve runs the command of model with the best solver for model if it is known, and otherwise
+     * races all solvers that have not failed, returning the first answer.
+     * @param String model, the path of the model, which the wins are counted for
+     * @param Run run
+     * @return A4Solution
+     * @throws Err if every solver failed to run the command.
+     */
+    public A4Solution solve(String model, Run run) throws Err {
+        SatSolver best = getBestSolver(model);
+        if (best != null) {
+            return run.run(getOptions(best), 0);
+        }
+
+        List<SatSolver> racers = getRacers();
+        ExecutorCompletionService<Object[]> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Object[]>> futures = new ArrayList<>();
+        for (int i = 0; i < racers.size(); i++) {
+            SatSolver solver = racers.get(i);
+            int racer = i;
+            futures.add(completion.submit(() -> {
+                // A racer that fails, e.g. because its solver is not available on this platform, only
+                // loses the race.
+                try {
+                    return new Object[] { solver, run.run(getOptions(solver), racer) };
+                } catch (Err e) {
+                    return new Object[] { solver, e };
+                } catch (RuntimeException | LinkageError e) {
+                    return new Object[] { solver, e };
+                }
+            }));
+        }
+
+        Throwable firstFailure = null;
+        List<SatSolver> failedRacers = new ArrayList<>();
+        try {
+            for (int i = 0; i < racers.size(); i++) {
+                Object[] result = await(completion);
+                SatSolver solver = (SatSolver) result[0];
+                if (result[1] instanceof A4Solution) {
+                    // Solvers that failed on a command that another solver could run are not
+                    // available on this platform. If all of them fail, the command itself is at fault.
+                    for (SatSolver failedRacer : failedRacers) {
+                        markFailed(failedRacer);
+                    }
+                    recordWin(model, solver);
+                    return (A4Solution) result[1];
+                }
+                if (firstFailure == null) {
+                    firstFailure = (Throwable) result[1];
+                }
+                failedRacers.add(solver);
+            }
+        } finally {
+            // Interrupting the losing racers cancels their solves.
+            for (Future<Object[]> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        if (firstFailure instanceof Err) {
+            throw (Err) firstFailure;
+        }
+        throw new ErrorFatal(firstFailure.toString(), firstFailure);
+    }
+
+    /**
+     * getStats returns how many races every solver has won, per model.
+     * @return String
+     */
+    public synchronized String getStats() {
+        if (wins.isEmpty()) {
+            return "none";
+        }
+        List<String> models = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Integer>> entry : wins.entrySet()) {
+            List<String> counts = new ArrayList<>();
+            for (Map.Entry<String, Integer> count : entry.getValue().entrySet()) {
+                counts.add(String.format("%s %d", count.getKey(), count.getValue()));
+            }
+            models.add(String.format("%s (%s)", new File(entry.getKey()).getName(), String.join(", ", counts)));
+        }
+        return String.join(", ", models);
+    }
+
+    /**
+     * getBestSolver returns the solver that won most races on model, once model has been raced
+     * RACES_PER_MODEL times.
+     * @param String model
+     * @return SatSolver, or null if model has not been raced often enough.
+     */
+    public synchronized SatSolver getBestSolver(String model) {
+        Map<String, Integer> modelWins = wins.get(model);
+        if (modelWins == null) {
+            return null;
+        }
+        int races = 0;
+        String best = null;
+        for (Map.Entry<String, Integer> count : modelWins.entrySet()) {
+            races += count.getValue();
+            if (best == null || count.getValue() > modelWins.get(best)) {
+                best = count.getKey();
+            }
+        }
+        if (races < RACES_PER_MODEL) {
+            return null;
+        }
+        for (SatSolver solver : solvers) {
+            if (solver.id().equals(best)) {
+                return solver;
+            }
+        }
+        return null;
+    }
+
+    private synchronized List<SatSolver> getRacers() {
+        List<SatSolver> racers = new ArrayList<>();
+        for (SatSolver solver : solvers) {
+            if (!failed.contains(solver)) {
+                racers.add(solver);
+            }
+        }
+        // Keep the default solver in the race even if it failed, so that errors are still reported.
+        if (racers.isEmpty()) {
+            racers.add(baseOptions.solver);
+        }
+        return racers;
+    }
+
+    private synchronized void recordWin(String model, SatSolver solver) {
+        wins.computeIfAbsent(model, m -> new LinkedHashMap<>()).merge(solver.id(), 1, Integer::sum);
+    }
+
+    private synchronized void markFailed(SatSolver solver) {
+        failed.add(solver);
+    }
+
+    private A4Options getOptions(SatSolver solver) {
+        A4Options options = baseOptions.dup();
+        options.solver = solver;
+        return options;
+    }
+
+    /**
+     * await returns the result of the next racer to finish.
+     * @param ExecutorCompletionService<Object[]> completion
+     * @return Object[], the solver and its A4Solution or failure
+     * @throws Err if the caller was interrupted while waiting, or a racer failed unexpectedly.
+     */
+    private static Object[] await(ExecutorCompletionService<Object[]> completion) throws Err {
+        try {
+            return completion.take().get();
+        } catch (ExecutionException e) {
+            throw new ErrorFatal(e.getCause().toString(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ErrorAPI(AlloyConstants.SOLVE_CANCELLED);
+        }
+    }
+}
@@ -22,6 +22,9 @@ public class CommandConstants {
     public final static String ALT_UNAVAILABLE = "No alternate execution paths.";
     public final static String UNTIL_FAILED = "Unable to find satisfying solution.";
     public final static String NO_MODEL_LOADED = "No model file specified.\nUse the \"load\" command.";
+    public final static String PREFETCH_STATS = "Prefetch hit rates: %s.\n";
+    public final static String PORTFOLIO_STATS = "Solver wins: %s.\n";
+    public final static String SOLVE_PROGRESS = "Still solving after %d s: %s. Press Ctrl-C to cancel.\n";
 
     public final static String ALIAS_NAME = "alias";
     public final static String ALIAS_DESCRIPTION = "Control the set of aliases used";
@@ -58,6 +61,40 @@ public class CommandConstants {
     public final static String INIT_HELP = "Return to the initial state of the active model.\n\nUsage: init";
     public final static String[] INIT_SHORTHAND = {"i"};
     
+    public final static String EXPLORE_NAME = "explore";
+    public final static String EXPLORE_DESCRIPTION = "Explore the states reachable from the current state";
+    public final static String EXPLORE_HELP = "Explore the states reachable from the current state.\n\n" +
+        "Usage: explore [depth] [maxStates]\n\n" +
+        "Adds every state up to depth transitions away from the current state to the state graph, breadth-first.\n" +
+        "Exploration stops early once maxStates distinct states have been found.\n" +
+        "depth and maxStates must be integers >= 1. By default, depth = 3 and maxStates = 1000.";
+    public final static String EXPLORE_PROGRESS = "Depth %d: %d states, %d in frontier (%.1f states/s).\n";
+
+    public final static String STATS_NAME = "stats";
+    public final static String STATS_DESCRIPTION = "Display performance statistics";
+    public final static String STATS_HELP = "Display performance statistics.\n\n" +
+        "Usage: stats [reset]\n\n" +
+        "Shows the time spent generating, parsing, translating and solving models, extracting states and\n" +
+        "rendering graphs, with a latency histogram per phase, and the sizes of the SAT problems solved.\n" +
+        "\"stats reset\" clears the statistics.";
+    public final static String STATS_RESET = "Statistics cleared.";
+
+    public final static String SOURCE_NAME = "source";
+    public final static String SOURCE_DESCRIPTION = "Run the commands in a file";
+    public final static String SOURCE_HELP = "Run the commands in a file.\n\n" +
+        "Usage: source <filename>\n\n" +
+        "The file has one command per line, as they would be entered at the prompt. Empty lines and lines\n" +
+        "starting with # are skipped. Graphs are only rendered once, after the last command, or when a\n" +
+        "render command runs.";
+    public final static String SOURCE_TOO_DEEP = "Error. Scripts can only be nested %d deep.\n";
+
+    public final static String RENDER_NAME = "render";
+    public final static String RENDER_DESCRIPTION = "Render the graphs of the current state";
+    public final static String RENDER_HELP = "Render the graphs of the current state.\n\n" +
+        "Usage: render\n\n" +
+        "Renders and shows the graphs now, e.g. in the middle of a script run with source.";
+    public final static String RENDER_HEADLESS = "Error. Graphs are not rendered in headless mode. Use dot to export the state graph.";
+
     public final static String GOTO_NAME = "goto";
     public final static String GOTO_DESCRIPTION = "Goto a specified state";
     public final static String GOTO_HELP = "Goto a specified state.\n\nUsage: goto [state name]";
@@ -106,7 +143,38 @@ public class CommandConstants {
         "set diff <on | off>\n\n" +
         "    Turn on/off differential output mode.\n\n" +
         "    When enabled, only fields that have changed between the previous and current state are displayed when executing step or alt.\n" +
-        "    By default, this option is enabled.";
+        "    By default, this option is enabled.\n\n" +
+        "set layout <java | graphviz>\n\n" +
+        "    Choose how the state tree graph is laid out.\n\n" +
+        "    java lays out the graph in process and only updates the parts that changed. graphviz uses the external dot program.\n" +
+        "    By default, java is used.\n\n" +
+        "set parallel <n | off>\n\n" +
+        "    Solve up to n path lengths at once, each on its own thread, when running until and force.\n\n" +
+        "    The shortest path is still found: longer paths are only abandoned once a shorter one has been found.\n" +
+        "    By default, this option is disabled and path lengths are tried one after another.\n\n" +
+        "set portfolio <on | off>\n\n" +
+        "    Turn on/off solver racing.\n\n" +
+        "    When enabled, every command is solved by all available SAT solvers at once and the first answer is used.\n" +
+        "    After a few races on a model, only the solver that won most often is used for it. Turning it off shows the wins.\n" +
+        "    By default, this option is disabled.\n\n" +
+        "set prefetch <on | off>\n\n" +
+        "    Turn on/off prefetching.\n\n" +
+        "    When enabled, a single step and the next alternative path are solved in the background while waiting for input,\n" +
+        "    so that step and alt can return immediately. Turning it off shows how many of them were served by prefetching.\n" +
+        "    By default, this option is disabled.\n\n" +
+        "set successors <n | off>\n\n" +
+        "    Enumerate up to n distinct successors of the current state whenever step is run without arguments.\n\n" +
+        "    All successors are added to the state graph, and alt and alt -r move between them without solving again.\n" +
+        "    By default, this option is disabled.\n\n" +
+        "set symmetry <on | off>\n\n" +
+        "    Turn on/off symmetry reduction.\n\n" +
+        "    When enabled, states that only differ by a permutation of the atoms of the sigs in additionalSigScopes\n" +
+        "    (e.g. Player_0 and Player_1) are represented by a single node in the state graph and explored once.\n" +
+        "    By default, this option is disabled.\n\n" +
+        "set timeout <ms | off>\n\n" +
+        "    Cancel any solve that runs for longer than ms milliseconds.\n\n" +
+        "    A solve can also be cancelled with Ctrl-C while a command is running; the session is kept.\n" +
+        "    By default, this option is disabled.";
 
     public final static String STEP_NAME = "step";
     public final static String STEP_DESCRIPTION = "Perform a state transition of n steps";
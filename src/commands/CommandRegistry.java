@@ -9,6 +9,7 @@ public final class CommandRegistry {
         new BreakCommand(),
         new CurrentCommand(),
         new DotCommand(),
+        new ExploreCommand(),
         new HelpCommand(),
         new HistoryCommand(),
         new InitCommand(),
@@ -16,7 +17,10 @@ public final class CommandRegistry {
         new QuitCommand(),
         new ReverseStepCommand(),
         new ScopeCommand(),
+        new RenderCommand(),
         new SetCommand(),
+        new SourceCommand(),
+        new StatsCommand(),
         new StepCommand(),
         new TraceCommand(),
         new UntilCommand(),
@@ -0,0 +1,58 @@
+package commands;
+
+import simulation.DashSimulationManager;
+import simulation.SimulationManager;
+
+public class ExploreCommand extends Command {
+    private final static int DEFAULT_DEPTH = 3;
+    private final static int DEFAULT_MAX_STATES = 1000;
+
+    public String getName() {
+        return CommandConstants.EXPLORE_NAME;
+    }
+
+    public String getDescription() {
+        return CommandConstants.EXPLORE_DESCRIPTION;
+    }
+
+    public String getHelp() {
+        return CommandConstants.EXPLORE_HELP;
+    }
+
+    public void execute(String[] input, SimulationManager simulationManager) {
+        if (simulationManager instanceof DashSimulationManager) {
+            simulationManager = (DashSimulationManager) simulationManager;
+        }
+        if (!simulationManager.isInitialized()) {
+            System.out.println(CommandConstants.NO_MODEL_LOADED);
+            return;
+        }
+        if (input.length > 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        int depth = DEFAULT_DEPTH;
+        int maxStates = DEFAULT_MAX_STATES;
+        try {
+            if (input.length > 1) {
+                depth = Integer.parseInt(input[1]);
+            }
+            if (input.length > 2) {
+                maxStates = Integer.parseInt(input[2]);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println(CommandConstants.INTEGER_ERROR);
+            return;
+        }
+
+        if (depth < 1 || maxStates < 1) {
+            System.out.println(CommandConstants.GR_ONE_ERROR);
+            return;
+        }
+
+        simulationManager.explore(depth, maxStates, (level, states, frontier, statesPerSecond) ->
+            System.out.printf(CommandConstants.EXPLORE_PROGRESS, level, states, frontier, statesPerSecond)
+        );
+    }
+}
@@ -28,6 +28,10 @@ public class QuitCommand extends Command {
         if (!simulationManager.isInitialized()) {
             System.exit(0);
         }
+        // There is no one to confirm with when the commands come from a script.
+        if (System.console() == null) {
+            System.exit(0);
+        }
         System.out.print(CommandConstants.QUIT_USER_PROMPT);
         String s = System.console().readLine();
         for (String accepted : CommandConstants.QUIT_ACCEPTED_RESPONSES) {
@@ -0,0 +1,31 @@
+package commands;
+
+import simulation.RenderPolicy;
+import simulation.SimulationManager;
+
+public class RenderCommand extends Command {
+    public String getName() {
+        return CommandConstants.RENDER_NAME;
+    }
+
+    public String getDescription() {
+        return CommandConstants.RENDER_DESCRIPTION;
+    }
+
+    public String getHelp() {
+        return CommandConstants.RENDER_HELP;
+    }
+
+    public void execute(String[] input, SimulationManager simulationManager) {
+        if (!simulationManager.isInitialized()) {
+            System.out.println(CommandConstants.NO_MODEL_LOADED);
+            return;
+        }
+        if (simulationManager.getRenderPolicy() == RenderPolicy.HEADLESS) {
+            System.out.println(CommandConstants.RENDER_HEADLESS);
+            return;
+        }
+
+        simulationManager.render();
+    }
+}
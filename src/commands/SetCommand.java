@@ -19,9 +19,18 @@ import static org.jline.builtins.Completers.TreeCompleter.node;
 public class SetCommand extends Command {
     private final static String CONF_OPTION = "conf";
     private final static String DIFF_OPTION = "diff";
+    private final static String LAYOUT_OPTION = "layout";
+    private final static String PARALLEL_OPTION = "parallel";
+    private final static String PORTFOLIO_OPTION = "portfolio";
+    private final static String PREFETCH_OPTION = "prefetch";
+    private final static String SUCCESSORS_OPTION = "successors";
+    private final static String SYMMETRY_OPTION = "symmetry";
+    private final static String TIMEOUT_OPTION = "timeout";
 
     private final static String ON = "on";
     private final static String OFF = "off";
+    private final static String JAVA = "java";
+    private final static String GRAPHVIZ = "graphviz";
 
     public String getName() {
         return CommandConstants.SET_NAME;
@@ -41,7 +50,21 @@ public class SetCommand extends Command {
                 node(CONF_OPTION,
                     node(new FileNameCompleter())),
                 node(DIFF_OPTION,
-                    node(ON, OFF))));
+                    node(ON, OFF)),
+                node(LAYOUT_OPTION,
+                    node(JAVA, GRAPHVIZ)),
+                node(PARALLEL_OPTION,
+                    node(OFF)),
+                node(PORTFOLIO_OPTION,
+                    node(ON, OFF)),
+                node(PREFETCH_OPTION,
+                    node(ON, OFF)),
+                node(SUCCESSORS_OPTION,
+                    node(OFF)),
+                node(SYMMETRY_OPTION,
+                    node(ON, OFF)),
+                node(TIMEOUT_OPTION,
+                    node(OFF))));
     }
 
     public void execute(String[] input, SimulationManager simulationManager) {
@@ -59,6 +82,27 @@ public class SetCommand extends Command {
             case DIFF_OPTION:
                 setDiffMode(input, simulationManager);
                 break;
+            case LAYOUT_OPTION:
+                setLayout(input, simulationManager);
+                break;
+            case PARALLEL_OPTION:
+                setParallel(input, simulationManager);
+                break;
+            case PORTFOLIO_OPTION:
+                setPortfolio(input, simulationManager);
+                break;
+            case PREFETCH_OPTION:
+                setPrefetch(input, simulationManager);
+                break;
+            case SUCCESSORS_OPTION:
+                setSuccessors(input, simulationManager);
+                break;
+            case SYMMETRY_OPTION:
+                setSymmetry(input, simulationManager);
+                break;
+            case TIMEOUT_OPTION:
+                setTimeout(input, simulationManager);
+                break;
             default:
                 System.out.println(getHelp());
         }
@@ -113,4 +157,148 @@ public class SetCommand extends Command {
             System.out.println(getHelp());
         }
     }
+
+    private void setLayout(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(JAVA)) {
+            simulationManager.setGraphvizLayout(false);
+        } else if (value.equals(GRAPHVIZ)) {
+            simulationManager.setGraphvizLayout(true);
+        } else {
+            System.out.println(getHelp());
+        }
+    }
+
+    private void setParallel(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(OFF)) {
+            simulationManager.setSearchThreads(0);
+            return;
+        }
+
+        int threads;
+        try {
+            threads = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println(getHelp());
+            return;
+        }
+        if (threads < 1) {
+            System.out.println(CommandConstants.GR_ONE_ERROR);
+            return;
+        }
+        simulationManager.setSearchThreads(threads);
+    }
+
+    private void setPortfolio(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(ON)) {
+            simulationManager.setSolverPortfolio(true);
+        } else if (value.equals(OFF)) {
+            System.out.printf(CommandConstants.PORTFOLIO_STATS, simulationManager.getSolverStats());
+            simulationManager.setSolverPortfolio(false);
+        } else {
+            System.out.println(getHelp());
+        }
+    }
+
+    private void setPrefetch(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(ON)) {
+            simulationManager.setPrefetch(true);
+        } else if (value.equals(OFF)) {
+            simulationManager.setPrefetch(false);
+            System.out.printf(CommandConstants.PREFETCH_STATS, simulationManager.getPrefetchStats());
+        } else {
+            System.out.println(getHelp());
+        }
+    }
+
+    private void setSuccessors(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(OFF)) {
+            simulationManager.setSuccessorCap(0);
+            return;
+        }
+
+        int cap;
+        try {
+            cap = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.println(getHelp());
+            return;
+        }
+        if (cap < 1) {
+            System.out.println(CommandConstants.GR_ONE_ERROR);
+            return;
+        }
+        simulationManager.setSuccessorCap(cap);
+    }
+
+    private void setSymmetry(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(ON)) {
+            simulationManager.setSymmetryReduction(true);
+        } else if (value.equals(OFF)) {
+            simulationManager.setSymmetryReduction(false);
+        } else {
+            System.out.println(getHelp());
+        }
+    }
+
+    private void setTimeout(String[] input, SimulationManager simulationManager) {
+        if (input.length < 3) {
+            System.out.println(getHelp());
+            return;
+        }
+
+        String value = input[2];
+        if (value.equals(OFF)) {
+            simulationManager.setSolveTimeout(0);
+            return;
+        }
+
+        long timeout;
+        try {
+            timeout = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.out.println(getHelp());
+            return;
+        }
+        if (timeout < 1) {
+            System.out.println(CommandConstants.GR_ONE_ERROR);
+            return;
+        }
+        simulationManager.setSolveTimeout(timeout);
+    }
 }
@@ -0,0 +1,78 @@
+package commands;
+
+import simulation.SimulationManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * SourceCommand runs the commands in a file, one per line. Graphs are only rendered once the last
+ * command has run, so that long scripts are not slowed down by rendering every intermediate state.
+ */
+public class SourceCommand extends Command {
+    // Stops scripts that source themselves.
+    private final static int MAX_DEPTH = 16;
+    private final static String COMMENT_PREFIX = "#";
+    private final static String WHITESPACE_REGEX = "\\s+";
+
+    private static int depth; // number of scripts being run, by any SourceCommand
+
+    public String getName() {
+        return CommandConstants.SOURCE_NAME;
+    }
+
+    public String getDescription() {
+        return CommandConstants.SOURCE_DESCRIPTION;
+    }
+
+    public String getHelp() {
+        return CommandConstants.SOURCE_HELP;
+    }
+
+    public boolean requiresFile() {
+        return true;
+    }
+
+    public void execute(String[] input, SimulationManager simulationManager) {
+        if (input.length < 2) {
+            System.out.println(CommandConstants.NO_FILE_SPECIFIED);
+            return;
+        }
+        String filename = input[1];
+        File file = new File(filename);
+        if (!file.exists()) {
+            System.out.printf(CommandConstants.NO_SUCH_FILE, filename);
+            return;
+        }
+        if (depth >= MAX_DEPTH) {
+            System.out.printf(CommandConstants.SOURCE_TOO_DEEP, MAX_DEPTH);
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath());
+        } catch (IOException e) {
+            System.out.println(CommandConstants.FAILED_TO_READ_FILE);
+            return;
+        }
+
+        depth++;
+        simulationManager.deferRendering();
+        try {
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                String[] command = line.split(WHITESPACE_REGEX);
+                CommandRegistry.commandForString(command[0]).execute(command, simulationManager);
+            }
+        } finally {
+            depth--;
+            simulationManager.resumeRendering();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package commands;
+
+import simulation.SimulationManager;
+
+public class StatsCommand extends Command {
+    private final static String RESET = "reset";
+
+    public String getName() {
+        return CommandConstants.STATS_NAME;
+    }
+
+    public String getDescription() {
+        return CommandConstants.STATS_DESCRIPTION;
+    }
+
+    public String getHelp() {
+        return CommandConstants.STATS_HELP;
+    }
+
+    public void execute(String[] input, SimulationManager simulationManager) {
+        if (input.length > 2 || (input.length == 2 && !input[1].equals(RESET))) {
+            System.out.println(CommandConstants.STATS_HELP);
+            return;
+        }
+
+        if (input.length == 2) {
+            simulationManager.resetStats();
+            System.out.println(CommandConstants.STATS_RESET);
+            return;
+        }
+
+        System.out.print(simulationManager.getStats());
+    }
+}
@@ -1,5 +1,6 @@
 package core;
 
+import alloy.AlloyInterface;
 import commands.*;
 
 import java.io.IOException;
@@ -33,6 +34,10 @@ class CLI {
             System.exit(0);
         }
 
+        // Ctrl-C while a command runs cancels its solves instead of exiting. At the prompt, the
+        // line reader handles it.
+        terminal.handle(Terminal.Signal.INT, signal -> AlloyInterface.cancelSolves());
+
         Completer completer = createCompleter();
 
         DefaultParser parser = new DefaultParser();
@@ -6,109 +6,51 @@ import org.json.JSONObject;
 import simulation.SimulationManager;
 
 import java.awt.*;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 public class DashGUI {
     private JsonDrawing drawingPanel1;
     private JsonDrawing drawingPanel2;
-    private String jsonFilePath1;
-    private String jsonFilePath2;
     private SimulationManager simulationManager;
 
-    public DashGUI(String filePath1, String filePath2, SimulationManager s) {
-        this.jsonFilePath1 = filePath1;
-        this.jsonFilePath2 = filePath2;
+    public DashGUI(SimulationManager s) {
         simulationManager = s;
-        initUI();
     }
 
-    private void initUI() {
+    /**
+     * update shows the layouts of the state tree and the control states graph, opening the window
+     * the first time. A null layout leaves the corresponding panel unchanged. It may be called from
+     * any thread.
+     * @param JSONObject stateTreeData
+     * @param JSONObject controlStatesData
+     */
+    public void update(JSONObject stateTreeData, JSONObject controlStatesData) {
         SwingUtilities.invokeLater(() -> {
-            try {
-                // Load JSON content
-                String content1 = new String(Files.readAllBytes(Paths.get(jsonFilePath1)));
-                JSONObject graphData1 = new JSONObject(content1);
-
-                String content2 = new String(Files.readAllBytes(Paths.get(jsonFilePath2)));
-                JSONObject graphData2 = new JSONObject(content2);
-
+            if (drawingPanel1 == null) {
                 // Create and set up the frame
                 JFrame frame = new JFrame("Dash Model Viewer");
                 frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
                 frame.setLayout(new GridLayout(1, 2)); // Two panels side by side
 
                 // Create and add the drawing panels
-                drawingPanel1 = new JsonDrawing(graphData1,simulationManager);
-                drawingPanel2 = new JsonDrawing(graphData2,simulationManager);
+                drawingPanel1 = new JsonDrawing(stateTreeData != null ? stateTreeData : new JSONObject(),simulationManager);
+                drawingPanel2 = new JsonDrawing(controlStatesData != null ? controlStatesData : new JSONObject(),simulationManager);
                 frame.add(drawingPanel1);
                 frame.add(drawingPanel2);
 
                 // Set up frame size and visibility
                 frame.setSize(1000, 500); // Adjusted to accommodate two panels
                 frame.setVisible(true);
-
-            } catch (IOException e) {
-                Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error loading JSON file", e);
-                JOptionPane.showMessageDialog(null, "Error loading JSON file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
-        });
-    }
-
-    // Method to refresh the painting
-    public void refreshJson() {
-        SwingUtilities.invokeLater(() -> {
-            try {
-                // Load new JSON content
-                String content1 = new String(Files.readAllBytes(Paths.get(jsonFilePath1)));
-                JSONObject newGraphData1 = new JSONObject(content1);
-
-                String content2 = new String(Files.readAllBytes(Paths.get(jsonFilePath2)));
-                JSONObject newGraphData2 = new JSONObject(content2);
-
-                SwingUtilities.invokeLater(() -> {
-                    drawingPanel1.updateGraphData(newGraphData1);
-                    drawingPanel1.repaint();
 
-                    drawingPanel2.updateGraphData(newGraphData2);
-                    drawingPanel2.repaint();
-                });
-
-            } catch (IOException e) {
-                Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error loading new JSON file", e);
-                JOptionPane.showMessageDialog(null, "Error loading new JSON file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            if (stateTreeData != null) {
+                drawingPanel1.updateGraphData(stateTreeData);
+                drawingPanel1.repaint();
             }
-        });
-    }
-
-    public void refreshJsonWithDelay(int delayMillis) {
-        Timer timer = new Timer(delayMillis, e -> {
-            try {
-                // Load new JSON content
-                String content1 = new String(Files.readAllBytes(Paths.get(jsonFilePath1)));
-                JSONObject newGraphData1 = new JSONObject(content1);
-
-                String content2 = new String(Files.readAllBytes(Paths.get(jsonFilePath2)));
-                JSONObject newGraphData2 = new JSONObject(content2);
-
-                SwingUtilities.invokeLater(() -> {
-                    drawingPanel1.updateGraphData(newGraphData1);
-                    drawingPanel1.repaint();
-
-                    drawingPanel2.updateGraphData(newGraphData2);
-                    drawingPanel2.repaint();
-                });
-
-            } catch (IOException e1) {
-                Logger.getLogger(getClass().getName()).log(Level.SEVERE, "Error loading new JSON file", e1);
-                JOptionPane.showMessageDialog(null, "Error loading new JSON file: " + e1.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            if (controlStatesData != null) {
+                drawingPanel2.updateGraphData(controlStatesData);
+                drawingPanel2.repaint();
             }
         });
-
-        timer.setRepeats(false); // Ensures the Timer runs only once
-        timer.start(); // Start the timer
     }
 }
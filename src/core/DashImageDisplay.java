@@ -8,8 +8,6 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 
 public class DashImageDisplay extends JFrame {
-    private BufferedImage image1;
-    private BufferedImage image2;
     private JLabel imageLabel1;
     private JLabel imageLabel2;
 
@@ -19,12 +17,9 @@ public class DashImageDisplay extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Load the images
-        loadImages();
-
-        // Create labels to display the images
-        imageLabel1 = new JLabel(new ImageIcon(image1));
-        imageLabel2 = new JLabel(new ImageIcon(image2));
+        // Create labels to display the images, which are set by update
+        imageLabel1 = new JLabel();
+        imageLabel2 = new JLabel();
 
         // Create a panel with a GridLayout to hold the image labels
         JPanel panel = new JPanel(new GridLayout(2, 1));
@@ -35,61 +30,22 @@ public class DashImageDisplay extends JFrame {
         add(panel, BorderLayout.CENTER);
     }
 
-    private void loadImages() {
-        waitForFinalFiles("state_tree.png", "control_states.png");
-
-        try {
-            // Load the final image files
-            File file1 = new File("state_tree.png");
-            File file2 = new File("control_states.png");
-
-            if (file1.exists() && file1.isFile()) {
-                image1 = ImageIO.read(file1);
+    /**
+     * update shows the rendered state tree and control states graph, and makes the window visible.
+     * A null image leaves the corresponding label unchanged. It may be called from any thread.
+     * @param BufferedImage stateTreeImage
+     * @param BufferedImage controlStatesImage
+     */
+    public void update(BufferedImage stateTreeImage, BufferedImage controlStatesImage) {
+        SwingUtilities.invokeLater(() -> {
+            if (stateTreeImage != null) {
+                imageLabel1.setIcon(new ImageIcon(stateTreeImage));
             }
-
-            if (file2.exists() && file2.isFile()) {
-                image2 = ImageIO.read(file2);
+            if (controlStatesImage != null) {
+                imageLabel2.setIcon(new ImageIcon(controlStatesImage));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.exit(1); // Exit if loading fails
-        }
-    }
-
-    private void waitForFinalFiles(String... filePaths) {
-        for (String filePath : filePaths) {
-            File finalFile = new File(filePath);
-            long startTime = System.currentTimeMillis();
-            long timeout = 10000; // 10 seconds
-
-            while (System.currentTimeMillis() - startTime < timeout) {
-                if (finalFile.exists() && finalFile.isFile()) {
-                    break; // File exists, proceed
-                }
-
-                try {
-                    Thread.sleep(100); // Check every 100 milliseconds
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-
-            if (!finalFile.exists()) {
-                System.out.println("Timeout reached: " + filePath + " not found within 10 seconds.");
-            }
-        }
-    }
-
-    public void refresh() {
-        new Thread(() -> {
-            waitForFinalFiles("state_tree.png", "control_states.png");
-
-            SwingUtilities.invokeLater(() -> {
-                loadImages();
-                imageLabel1.setIcon(new ImageIcon(image1));
-                imageLabel2.setIcon(new ImageIcon(image2));
-            });
-        }).start();
+            setVisible(true);
+        });
     }
 
     public static void writeImage(BufferedImage image, String path) {
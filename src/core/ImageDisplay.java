@@ -8,10 +8,7 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 
 public class ImageDisplay extends JFrame {
-    private BufferedImage image1;
-    private BufferedImage image2;
     private JLabel imageLabel1;
-    private JLabel imageLabel2;
 
     public ImageDisplay() {
         setTitle("Image Display");
@@ -19,11 +16,8 @@ public class ImageDisplay extends JFrame {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
 
-        // Load the images
-        loadImages();
-
-        // Create labels to display the images
-        imageLabel1 = new JLabel(new ImageIcon(image1));
+        // Create labels to display the images, which are set by update
+        imageLabel1 = new JLabel();
         
 
         // Create a panel with a GridLayout to hold the image labels
@@ -35,59 +29,18 @@ public class ImageDisplay extends JFrame {
         add(panel, BorderLayout.CENTER);
     }
 
-    private void loadImages() {
-        waitForFinalFiles("state_tree.png", "control_states.png");
-
-        try {
-            // Load the final image files
-            File file1 = new File("state_tree.png");
-            
-
-            if (file1.exists() && file1.isFile()) {
-                image1 = ImageIO.read(file1);
+    /**
+     * update shows image, the rendered state tree, and makes the window visible. It may be called
+     * from any thread.
+     * @param BufferedImage image
+     */
+    public void update(BufferedImage image) {
+        SwingUtilities.invokeLater(() -> {
+            if (image != null) {
+                imageLabel1.setIcon(new ImageIcon(image));
             }
-
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.exit(1); // Exit if loading fails
-        }
-    }
-
-    private void waitForFinalFiles(String... filePaths) {
-        for (String filePath : filePaths) {
-            File finalFile = new File(filePath);
-            long startTime = System.currentTimeMillis();
-            long timeout = 10000; // 10 seconds
-
-            while (System.currentTimeMillis() - startTime < timeout) {
-                if (finalFile.exists() && finalFile.isFile()) {
-                    break; // File exists, proceed
-                }
-
-                try {
-                    Thread.sleep(100); // Check every 100 milliseconds
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
-
-            if (!finalFile.exists()) {
-                System.out.println("Timeout reached: " + filePath + " not found within 10 seconds.");
-            }
-        }
-    }
-
-    public void refresh() {
-        new Thread(() -> {
-            waitForFinalFiles("state_tree.png", "control_states.png");
-
-            SwingUtilities.invokeLater(() -> {
-                loadImages();
-                imageLabel1.setIcon(new ImageIcon(image1));
-                
-            });
-        }).start();
+            setVisible(true);
+        });
     }
 
     public static void writeImage(BufferedImage image, String path) {
@@ -153,7 +153,8 @@ public class JsonDrawing extends JPanel {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
 
-        if (isDrawingVisible) {
+        // Nothing is drawn until a graph with objects has been received.
+        if (isDrawingVisible && objects != null) {
             shapeList.clear();
             shapeLabelMap.clear();  // Clear the map before adding new entries
             g2d.scale(zoomFactor, zoomFactor);
@@ -1,9 +1,12 @@
 package core;
 
+import alloy.AlloyInterface;
+import alloy.SolveProgressListener;
 import commands.Command;
 import commands.CommandConstants;
 import commands.CommandRegistry;
 import simulation.DashSimulationManager;
+import simulation.RenderPolicy;
 import simulation.SimulationManager;
 import net.sourceforge.argparse4j.ArgumentParsers;
 import net.sourceforge.argparse4j.impl.Arguments;
@@ -17,6 +20,8 @@ public class Main {
     private static SimulationManager simulationManager;
     private static DashSimulationManager dashsimulationManager;
     private static SessionLog log;
+    private static SessionSnapshot snapshot;
+    private static boolean dashmode;
     
     private static String SET_MODE_PROMPT = "Enter 'd' or 'dash' to enter dash mode. Enter anything else to enter alloy mode.";
     private static String prevSessionLogPath;
@@ -28,6 +33,13 @@ public class Main {
     private static String RESTORE_FLAG_SHORT = "-r";
     private static String RESTORE_FLAG = "--restore";
     private static String RESTORE_DESC = "restore session from existing session log file";
+    private static String HEADLESS_FLAG = "--headless";
+    private static String HEADLESS_DESC = "run without rendering graphs or opening any windows, e.g. from scripts or CI";
+    private static String SCRIPT_FLAG_SHORT = "-s";
+    private static String SCRIPT_FLAG = "--script";
+    private static String SCRIPT_DESC = "run the commands in a script file in Alloy mode and exit, rendering graphs once at the end";
+    private static String LOG_DURABILITY_FLAG = "--log-durability";
+    private static String LOG_DURABILITY_DESC = "when to flush the session log to disk: after every command, periodically, or on exit";
     private static String VERSION_FLAG_SHORT = "-v";
     private static String VERSION_FLAG = "--version";
     private static String VERSION_DESC = "show version information and exit";
@@ -39,6 +51,8 @@ public class Main {
     private static String CREATE_LOG_ERROR = "Error. Unable to create session log. Continuing without session log.";
     private static String RESTORING_SESSION_TEXT = "Restoring session from session log \"%s\".";
     private static String SESSION_LOG_OPEN_ERROR = "Error. Session log \"%s\" could not be opened for reading. Continuing with new empty session log.";
+    private static String RESTORED_SNAPSHOT_TEXT = "Restored the first %d commands from session snapshot \"%s\".";
+    private static String SNAPSHOT_READ_ERROR = "Error. Session snapshot \"%s\" could not be read. Replaying the whole session log.";
 
     public static void main(String[] args) throws IOException {
         ArgumentParser parser = ArgumentParsers.newFor(PROGRAM_NAME).build()
@@ -47,9 +61,18 @@ public class Main {
             .version(String.format("${prog} v%s", VERSION));
         parser.addArgument(VERSION_FLAG_SHORT, VERSION_FLAG).help(VERSION_DESC).action(Arguments.version());
         parser.addArgument(RESTORE_FLAG_SHORT, RESTORE_FLAG).help(RESTORE_DESC);
+        parser.addArgument(SCRIPT_FLAG_SHORT, SCRIPT_FLAG).help(SCRIPT_DESC);
+        parser.addArgument(HEADLESS_FLAG).help(HEADLESS_DESC).action(Arguments.storeTrue());
+        parser.addArgument(LOG_DURABILITY_FLAG)
+            .choices(
+                SessionLog.Durability.COMMAND.getName(),
+                SessionLog.Durability.PERIODIC.getName(),
+                SessionLog.Durability.EXIT.getName()
+            )
+            .setDefault(SessionLog.Durability.COMMAND.getName())
+            .help(LOG_DURABILITY_DESC);
         parser.addArgument(FILE_ARG_NAME).nargs(OPTIONAL).help(FILE_ARG_DESC);
         
-        boolean dashmode = false;
         Namespace ns = null;
         try {
             ns = parser.parseArgs(args);
@@ -58,9 +81,30 @@ public class Main {
             System.exit(1);
         }
 
+        // Set before any AWT class is loaded, so that nothing can open a window.
+        boolean headless = ns.getBoolean(HEADLESS_FLAG.substring(2));
+        if (headless) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
         simulationManager = new SimulationManager();
         dashsimulationManager = new DashSimulationManager();
+        if (headless) {
+            simulationManager.setRenderPolicy(RenderPolicy.HEADLESS);
+            dashsimulationManager.setRenderPolicy(RenderPolicy.HEADLESS);
+        }
         CLI cli = new CLI();
+
+        // Show the progress of long solves. Ctrl-C cancels them (see CLI).
+        AlloyInterface.setProgressListener(new SolveProgressListener() {
+            public void solving(String status, long elapsedMillis) {
+                System.out.printf(CommandConstants.SOLVE_PROGRESS, elapsedMillis / 1000, status);
+            }
+
+            public void stopped(String message) {
+                System.out.println(message);
+            }
+        });
         
         //your code here
         
@@ -74,7 +118,8 @@ public class Main {
 
         log = new SessionLog(null);
         try {
-            log.create();
+            SessionLog.Durability durability = SessionLog.Durability.forName(ns.getString(LOG_DURABILITY_FLAG.substring(2).replace('-', '_')));
+            log.create(durability, SessionLog.DEFAULT_ROTATE_BYTES);
         } catch (IOException e) {
             System.out.println(CREATE_LOG_ERROR);
         }
@@ -90,9 +135,45 @@ public class Main {
                 System.out.println(String.format(SESSION_LOG_OPEN_ERROR, prevSessionLogPath));
             }
             if (prevLog != null) {
-                prevLog.restore(simulationManager, log);
+                // Only replay the commands logged after the snapshot of the previous session.
+                int restored = 0;
+                SessionSnapshot prevSnapshot = SessionSnapshot.forLog(prevSessionLogPath);
+                if (prevSnapshot.exists()) {
+                    try {
+                        restored = prevSnapshot.read(simulationManager);
+                        System.out.println(String.format(RESTORED_SNAPSHOT_TEXT, restored, prevSessionLogPath + ".snap"));
+                    } catch (IOException e) {
+                        System.out.println(String.format(SNAPSHOT_READ_ERROR, prevSessionLogPath + ".snap"));
+                    }
+                }
+                // Render the restored session once, rather than after every replayed command.
+                simulationManager.deferRendering();
+                try {
+                    prevLog.restore(simulationManager, log, restored);
+                } finally {
+                    simulationManager.resumeRendering();
+                }
             }
         }
+        if (log.isInitialized()) {
+            snapshot = SessionSnapshot.forLog(log.getPath());
+            // A single hook, so that the last snapshot is written before the log is closed.
+            Runtime.getRuntime().addShutdownHook(new Thread(Main::shutdown));
+        }
+
+        // Run a script instead of reading commands from the prompt.
+        String scriptPath = ns.getString(SCRIPT_FLAG.substring(2));
+        if (scriptPath != null) {
+            String[] input = { CommandConstants.SOURCE_NAME, scriptPath };
+            CommandRegistry.commandForString(input[0]).execute(input, simulationManager);
+            if (log.isInitialized()) {
+                log.append(input);
+            }
+            // The views, if any, stay open until they are closed.
+            simulationManager.awaitRendering();
+            return;
+        }
+
         System.out.println(SET_MODE_PROMPT);
         String[] modeinput = cli.getInput();
         if (modeinput.length > 0 && (modeinput[0].equals("d") || modeinput[0].equals("dash"))) {
@@ -101,6 +182,9 @@ public class Main {
         }
         else {
         	System.out.println("Alloy mode activated.");
+        	if (snapshot != null) {
+        	    writeSnapshot();
+        	}
         }
         while (true) {
             String[] input = cli.getInput();
@@ -111,12 +195,39 @@ public class Main {
             	if (log.isInitialized()) {
                     log.append(input);
                 }
+            	dashsimulationManager.prefetch();
             	continue;
             }
             command.execute(input, simulationManager);
             if (log.isInitialized()) {
                 log.append(input);
             }
+            if (snapshot != null && !dashmode) {
+                snapshot.writeIfDue(simulationManager, log);
+            }
+            // Solve the likely next command while the user reads the output.
+            simulationManager.prefetch();
+        }
+    }
+
+    // Snapshots are only taken of Alloy mode sessions, as --restore replays into the Alloy mode
+    // SimulationManager.
+    private static void writeSnapshot() {
+        try {
+            snapshot.write(simulationManager, log);
+        } catch (IOException | RuntimeException e) {
+            // Keep the previous snapshot. The commands since then are still in the log.
+        }
+    }
+
+    private static void shutdown() {
+        if (!dashmode) {
+            writeSnapshot();
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            // Nothing more can be done while exiting.
         }
     }
 }
@@ -5,14 +5,28 @@ import commands.CommandRegistry;
 import simulation.SimulationManager;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * SessionLog is an append-only log on disk of commands that the user has submitted.
@@ -24,10 +38,61 @@ import java.util.Date;
  * step
  * step 4
  * foo
+ *
+ * Commands are appended to a writer that stays open for the whole session, and are flushed to disk
+ * according to the Durability of the log. Once the log grows past its rotation size, it is moved to
+ * a numbered segment, e.g. aldb.2020.01.01.00.00.00.1, which is gzipped in the background, and a new
+ * log is started. Restoring a log reads its segments in order before the log itself.
  */
 public class SessionLog {
+    /**
+     * Durability is when appended commands are flushed to disk.
+     */
+    public enum Durability {
+        COMMAND("command"), // after every command
+        PERIODIC("periodic"), // every FLUSH_INTERVAL_MILLIS, in the background
+        EXIT("exit"); // when the log is closed, or its buffer is full
+
+        private final String name;
+
+        Durability(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * forName returns the Durability with the given name.
+         * @param String name
+         * @return Durability, or null if there is none.
+         */
+        public static Durability forName(String name) {
+            for (Durability durability : values()) {
+                if (durability.name.equals(name)) {
+                    return durability;
+                }
+            }
+            return null;
+        }
+    }
+
+    public final static long FLUSH_INTERVAL_MILLIS = 1000;
+    public final static long DEFAULT_ROTATE_BYTES = 8 * 1024 * 1024;
+    private final static String GZIP_SUFFIX = ".gz";
+    private final static String TMP_SUFFIX = ".tmp";
+    private final static long CLOSE_TIMEOUT_SECONDS = 10;
+
     private File log;
     private BufferedReader br;
+    private BufferedWriter writer;
+    private Durability durability = Durability.COMMAND;
+    private long rotateBytes = DEFAULT_ROTATE_BYTES;
+    private long bytes; // size of the current segment
+    private int segments; // number of rotated segments
+    private ScheduledExecutorService executor; // flushes and compresses in the background
+    private int length; // number of commands appended by this session
     private String FILE_PREFIX = "aldb.";
     private String DATE_FORMAT = "yyyy.MM.dd.HH.mm.ss";
     private String TMP_DIR_PROPERTY = "java.io.tmpdir";
@@ -36,7 +101,7 @@ public class SessionLog {
     public SessionLog(String prevLogPath) throws IOException {
         if (prevLogPath != null)  {
             log = new File(prevLogPath);
-            br = new BufferedReader(new FileReader(prevLogPath));
+            br = openSegments(log);
             return;
         }
         String logName = FILE_PREFIX + new SimpleDateFormat(DATE_FORMAT).format(new Date());
@@ -44,16 +109,93 @@ public class SessionLog {
     }
 
     public void create() throws IOException {
+        create(Durability.COMMAND, DEFAULT_ROTATE_BYTES);
+    }
+
+    /**
+     * create creates the log on disk and opens it for appending.
+     * @param Durability durability, when appended commands are flushed to disk
+     * @param long rotateBytes, the size after which the log is rotated
+     * @throws IOException if the log could not be created.
+     */
+    public synchronized void create(Durability durability, long rotateBytes) throws IOException {
+        this.durability = durability;
+        this.rotateBytes = rotateBytes;
         log.createNewFile();
+        openWriter();
+        if (durability == Durability.PERIODIC) {
+            getExecutor().scheduleWithFixedDelay(
+                this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS
+            );
+        }
     }
 
     public boolean isInitialized() {
         return log.exists();
     }
 
-    public void append(String[] input) throws IOException {
+    public String getPath() {
+        return log.getAbsolutePath();
+    }
+
+    /**
+     * getLength returns the number of commands appended to this SessionLog by the current session,
+     * including those restored from a previous session log.
+     * @return int
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public synchronized void append(String[] input) throws IOException {
+        if (writer == null) {
+            openWriter();
+        }
         String line = String.join(" ", input) + "\n";
-        Files.write(Paths.get(log.getAbsolutePath()), line.getBytes(), StandardOpenOption.APPEND);
+        writer.write(line);
+        bytes += line.getBytes(StandardCharsets.UTF_8).length;
+        length++;
+        if (durability == Durability.COMMAND) {
+            writer.flush();
+        }
+        if (bytes >= rotateBytes) {
+            rotate();
+        }
+    }
+
+    /**
+     * flush writes all appended commands to disk.
+     * @throws IOException if writing to the log fails.
+     */
+    public synchronized void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * close flushes the log and waits for rotated segments to be compressed. Appending to the log
+     * afterwards reopens it.
+     * @throws IOException if writing to the log fails.
+     */
+    public void close() throws IOException {
+        ScheduledExecutorService pending;
+        synchronized (this) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            pending = executor;
+            executor = null;
+        }
+        if (pending != null) {
+            pending.shutdown();
+            try {
+                pending.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     /**
@@ -63,13 +205,123 @@ public class SessionLog {
      * @throws IOException if reading the previous session log or writing to the new session log fails.
      */
     public void restore(SimulationManager simulationManager, SessionLog newLog) throws IOException {
+        restore(simulationManager, newLog, 0);
+    }
+
+    /**
+     * restore recovers the session like restore(simulationManager, newLog), but only replays the
+     * commands after the first `restored` ones, whose effects have already been restored from a
+     * session snapshot. All commands are still copied to newLog.
+     * @param SimulationManager simulationManager
+     * @param SessionLog newLog
+     * @param int restored
+     * @throws IOException if reading the previous session log or writing to the new session log fails.
+     */
+    public void restore(SimulationManager simulationManager, SessionLog newLog, int restored) throws IOException {
+        int lineNumber = 0;
         for (String line = br.readLine(); line != null; line = br.readLine()) {
             String[] input = line.split(WHITESPACE_REGEX);
-            Command command = CommandRegistry.commandForString(input[0]);
-            command.execute(input, simulationManager);
+            if (lineNumber++ >= restored) {
+                Command command = CommandRegistry.commandForString(input[0]);
+                command.execute(input, simulationManager);
+            }
             if (newLog.isInitialized()) {
                 newLog.append(input);
             }
         }
     }
+
+    /**
+     * getSegment returns the file of rotated segment n of log, which is gzipped once it has been
+     * compressed.
+     * @param File log
+     * @param int n, starting from 1
+     * @param boolean compressed
+     * @return File
+     */
+    static File getSegment(File log, int n, boolean compressed) {
+        return new File(log.getPath() + "." + n + (compressed ? GZIP_SUFFIX : ""));
+    }
+
+    // Opens the rotated segments of log and then log itself as one stream of lines.
+    private static BufferedReader openSegments(File log) throws IOException {
+        InputStream current = new FileInputStream(log);
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (int n = 1; ; n++) {
+                File compressed = getSegment(log, n, true);
+                File uncompressed = getSegment(log, n, false);
+                // A segment is only uncompressed if its session ended while it was being compressed.
+                if (compressed.exists()) {
+                    streams.add(new GZIPInputStream(new FileInputStream(compressed)));
+                } else if (uncompressed.exists()) {
+                    streams.add(new FileInputStream(uncompressed));
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            current.close();
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+            throw e;
+        }
+        streams.add(current);
+        return new BufferedReader(new InputStreamReader(
+            new SequenceInputStream(Collections.enumeration(streams)), StandardCharsets.UTF_8
+        ));
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(
+            log.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+        );
+        bytes = log.length();
+    }
+
+    // Moves the log to the next segment, compresses it in the background and starts a new log.
+    private void rotate() throws IOException {
+        writer.close();
+        writer = null;
+        segments++;
+        File segment = getSegment(log, segments, false);
+        Files.move(log.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        openWriter();
+        getExecutor().execute(() -> compress(segment));
+    }
+
+    private static void compress(File segment) {
+        File compressed = new File(segment.getPath() + GZIP_SUFFIX);
+        File tmp = new File(compressed.getPath() + TMP_SUFFIX);
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp.toPath()))) {
+                Files.copy(segment.toPath(), out);
+            }
+            Files.move(tmp.toPath(), compressed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment.toPath());
+        } catch (IOException e) {
+            // Keep the uncompressed segment, which is read in the same way.
+            tmp.delete();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // The commands are flushed again on the next attempt or on close.
+        }
+    }
+
+    private ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "aldb-session-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
 }
@@ -0,0 +1,115 @@
+package core;
+
+import simulation.SimulationManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * SessionSnapshot is a binary snapshot on disk of a session, kept next to its SessionLog.
+ *
+ * Restoring a session from its log alone replays every command, solving every step again. A snapshot
+ * instead records the state of the SimulationManager after the first n commands of the log, so that
+ * only the commands logged after it need to be replayed.
+ *
+ * Snapshots are written to a temporary file that then replaces the previous snapshot, so a session
+ * that is killed while writing one still has the previous snapshot.
+ */
+public class SessionSnapshot {
+    private final static long MAGIC = 0x414c4442534e4150L; // "ALDBSNAP"
+    private final static int VERSION = 1;
+    private final static String SUFFIX = ".snap";
+    private final static String TMP_SUFFIX = ".tmp";
+    // Minimum time between two snapshots written by writeIfDue.
+    private final static long INTERVAL_MILLIS = 10000;
+
+    private final File file;
+    private long lastWrite;
+    private int lastLogLength = -1;
+
+    public SessionSnapshot(File file) {
+        this.file = file;
+    }
+
+    /**
+     * forLog returns the snapshot of the session log at logPath.
+     * @param String logPath
+     * @return SessionSnapshot
+     */
+    public static SessionSnapshot forLog(String logPath) {
+        return new SessionSnapshot(new File(logPath + SUFFIX));
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * write writes the session of simulationManager, after the commands appended to log so far. The
+     * log is flushed first, so that a snapshot never covers commands that are not on disk.
+     * @param SimulationManager simulationManager
+     * @param SessionLog log
+     * @throws IOException if the log could not be flushed or the snapshot could not be written.
+     */
+    public synchronized void write(SimulationManager simulationManager, SessionLog log) throws IOException {
+        log.flush();
+        int logLength = log.getLength();
+        File tmp = new File(file.getPath() + TMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(logLength);
+            simulationManager.writeSnapshot(out);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastWrite = System.currentTimeMillis();
+        lastLogLength = logLength;
+    }
+
+    /**
+     * writeIfDue writes a snapshot if commands have been logged since the last one and it was written
+     * long enough ago, so that snapshots are kept up to date without slowing down every command.
+     * @param SimulationManager simulationManager
+     * @param SessionLog log
+     * @return boolean, true if a snapshot was written
+     */
+    public boolean writeIfDue(SimulationManager simulationManager, SessionLog log) {
+        if (log.getLength() == lastLogLength || System.currentTimeMillis() - lastWrite < INTERVAL_MILLIS) {
+            return false;
+        }
+        try {
+            write(simulationManager, log);
+            return true;
+        } catch (IOException e) {
+            // Keep the previous snapshot. The commands since then are still in the log.
+            return false;
+        }
+    }
+
+    /**
+     * read restores the session in the snapshot into simulationManager.
+     * @param SimulationManager simulationManager
+     * @return int, the number of commands of the session log that the snapshot covers
+     * @throws IOException if the snapshot could not be read, in which case simulationManager is
+     * unchanged.
+     */
+    public int read(SimulationManager simulationManager) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a session snapshot.");
+            }
+            int logLength = in.readInt();
+            simulationManager.readSnapshot(in);
+            return logLength;
+        } catch (RuntimeException e) {
+            // A corrupt snapshot can fail in other ways than a truncated one.
+            throw new IOException("Malformed snapshot.", e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package simulation;
+
+import commands.CommandConstants;
+import state.StateDiff;
+import state.StateGraph;
+import state.StateNode;
+import state.StatePath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * AldbSession drives a simulation from Java, e.g. from a test harness, without the CLI.
+ *
+ * Operations return the resulting StateNode, or null if they failed, instead of printing the state.
+ * Errors and state changes are reported to the SessionListeners of the session, and nothing is
+ * printed or rendered. Sessions of different SimulationManagers are independent, so many can run in
+ * the same process. A session is not thread-safe. Only Alloy models are supported, not Dash models.
+ */
+public class AldbSession {
+    private final SimulationManager simulationManager;
+    private final List<SessionListener> listeners = new ArrayList<>();
+
+    public AldbSession() {
+        this(new SimulationManager());
+    }
+
+    /**
+     * This constructor makes simulationManager headless and redirects its messages to the listeners of
+     * the session.
+     * @param SimulationManager simulationManager
+     */
+    public AldbSession(SimulationManager simulationManager) {
+        this.simulationManager = simulationManager;
+        simulationManager.setRenderPolicy(RenderPolicy.HEADLESS);
+        simulationManager.setMessageListener(this::message);
+    }
+
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SessionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * load loads the Alloy model in file and moves to its initial state.
+     * @param File file
+     * @return StateNode, the initial state, or null if the model could not be loaded.
+     */
+    public StateNode load(File file) {
+        return change(null, () -> simulationManager.initialize(file, false));
+    }
+
+    /**
+     * loadTrace loads the Alloy XML instance in file and moves to its first state.
+     * @param File file
+     * @return StateNode, the first state, or null if the trace could not be loaded.
+     */
+    public StateNode loadTrace(File file) {
+        return change(null, () -> simulationManager.initialize(file, true));
+    }
+
+    public StateNode step() {
+        return step(1);
+    }
+
+    public StateNode step(int steps) {
+        return step(steps, new ArrayList<>());
+    }
+
+    /**
+     * step performs `steps` transitions, applying the i-th constraint to the i-th transition.
+     * @param int steps
+     * @param List<String> constraints, which may be aliases
+     * @return StateNode, the state reached, or null if no such transitions exist.
+     */
+    public StateNode step(int steps, List<String> constraints) {
+        if (!checkInitialized() || !checkPositive(steps)) {
+            return null;
+        }
+        List<String> formulas = new ArrayList<>();
+        for (String constraint : constraints) {
+            String formula = resolve(constraint);
+            if (formula == null) {
+                return null;
+            }
+            formulas.add(formula);
+        }
+        return change(simulationManager.getCurrentNode(), () -> simulationManager.performStep(steps, formulas));
+    }
+
+    /**
+     * addBreakpoint adds constraint to the constraints that until stops at.
+     * @param String constraint, which may be an alias
+     * @return boolean, false if constraint is invalid.
+     */
+    public boolean addBreakpoint(String constraint) {
+        if (!checkInitialized()) {
+            return false;
+        }
+        String formula = resolve(constraint);
+        if (formula == null) {
+            return false;
+        }
+        simulationManager.getConstraintManager().addConstraint(formula);
+        return true;
+    }
+
+    public void clearBreakpoints() {
+        simulationManager.getConstraintManager().clearConstraints();
+    }
+
+    /**
+     * until steps until one of the breakpoints holds, for at most limit transitions.
+     * @param int limit
+     * @return StateNode, the state reached, or null if no breakpoint can be reached within limit.
+     */
+    public StateNode until(int limit) {
+        if (!checkInitialized() || !checkPositive(limit)) {
+            return null;
+        }
+        StateNode state = change(simulationManager.getCurrentNode(), () -> simulationManager.performUntil(limit));
+        if (state == null) {
+            message(CommandConstants.UNTIL_FAILED);
+        }
+        return state;
+    }
+
+    public StateNode alt() {
+        return alt(false);
+    }
+
+    /**
+     * alt moves to the next alternative of the current state, or to the previous one if reverse is set.
+     * @param boolean reverse
+     * @return StateNode, the alternative, or null if there is none.
+     */
+    public StateNode alt(boolean reverse) {
+        if (!checkInitialized()) {
+            return null;
+        }
+        StateNode state = change(simulationManager.getCurrentNode(), () -> simulationManager.selectAlternatePath(reverse));
+        if (state == null) {
+            message(CommandConstants.ALT_UNAVAILABLE);
+        }
+        return state;
+    }
+
+    /**
+     * back goes back by `steps` states in the current path.
+     * @param int steps
+     * @return StateNode, the state reached, or null if no model is loaded.
+     */
+    public StateNode back(int steps) {
+        if (!checkInitialized() || !checkPositive(steps)) {
+            return null;
+        }
+        return change(simulationManager.getCurrentNode(), () -> {
+            simulationManager.performReverseStep(steps);
+            return true;
+        });
+    }
+
+    /**
+     * init returns to the initial state of the model.
+     * @return StateNode, the initial state, or null if no model is loaded.
+     */
+    public StateNode init() {
+        if (!checkInitialized()) {
+            return null;
+        }
+        return change(simulationManager.getCurrentNode(), simulationManager::setToInit);
+    }
+
+    /**
+     * currentState returns the current state.
+     * @return StateNode, or null if no model is loaded.
+     */
+    public StateNode currentState() {
+        return simulationManager.getCurrentNode();
+    }
+
+    /**
+     * path returns the states from the initial state up to the current state.
+     * @return List<StateNode>
+     */
+    public List<StateNode> path() {
+        List<StateNode> path = new ArrayList<>();
+        StatePath statePath = simulationManager.getStatePath();
+        if (statePath.isEmpty()) {
+            return path;
+        }
+        for (int i = 0; i <= statePath.getPosition(); i++) {
+            path.add(statePath.getNode(i));
+        }
+        return path;
+    }
+
+    /**
+     * diff returns the changes from the previous state of the path to the current state.
+     * @return StateDiff, or null if no model is loaded.
+     */
+    public StateDiff diff() {
+        StatePath statePath = simulationManager.getStatePath();
+        StateNode current = statePath.getCurNode();
+        if (current == null) {
+            return null;
+        }
+        return StateDiff.between(statePath.getNode(statePath.getPosition() - 1), current);
+    }
+
+    /**
+     * graph returns the graph of all states found so far. It is updated by later operations.
+     * @return StateGraph
+     */
+    public StateGraph graph() {
+        return simulationManager.getStateGraph();
+    }
+
+    public SimulationManager getSimulationManager() {
+        return simulationManager;
+    }
+
+    // Runs operation and notifies the listeners if it succeeded.
+    private StateNode change(StateNode previous, BooleanSupplier operation) {
+        if (!operation.getAsBoolean()) {
+            return null;
+        }
+        StateNode current = simulationManager.getCurrentNode();
+        for (SessionListener listener : new ArrayList<>(listeners)) {
+            listener.stateChanged(previous, current);
+        }
+        return current;
+    }
+
+    // Returns the formula of constraint, which may be an alias, or null if it is invalid.
+    private String resolve(String constraint) {
+        AliasManager aliasManager = simulationManager.getAliasManager();
+        String formula = aliasManager.isAlias(constraint) ? aliasManager.getFormula(constraint) : constraint;
+        if (!simulationManager.validateConstraint(formula)) {
+            message(String.format(CommandConstants.INVALID_CONSTRAINT, constraint));
+            return null;
+        }
+        return formula;
+    }
+
+    private boolean checkInitialized() {
+        if (!simulationManager.isInitialized()) {
+            message(CommandConstants.NO_MODEL_LOADED);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean checkPositive(int n) {
+        if (n < 1) {
+            message(CommandConstants.GR_ONE_ERROR);
+            return false;
+        }
+        return true;
+    }
+
+    private void message(String message) {
+        for (SessionListener listener : new ArrayList<>(listeners)) {
+            listener.message(message);
+        }
+    }
+}
@@ -37,6 +37,16 @@ public class AliasManager {
         aliases.clear();
     }
 
+    // Returns the aliases with their resolved formulas, which a session snapshot needs to keep them.
+    Map<String, String> getAliases() {
+        return aliases;
+    }
+
+    // Replaces the aliases with those of a session snapshot. The formulas are already resolved.
+    void restoreAliases(Map<String, String> aliases) {
+        this.aliases = new HashMap<>(aliases);
+    }
+
     public String getFormula(String alias) {
         return aliases.get(alias);
     }
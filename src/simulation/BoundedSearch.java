@@ -0,0 +1,111 @@
+package simulation;
+
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.translator.A4Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BoundedSearch finds the smallest bound, up to a limit, for which a bounded model is satisfiable,
+ * by solving several bounds at once on a pool of worker threads.
+ *
+ * Bounds are started in increasing order. Once a bound is found to be satisfiable, larger bounds
+ * that have not started yet are skipped, but smaller bounds are still solved to completion so that
+ * the solution returned is always the one for the smallest satisfiable bound, as a sequential
+ * search would return. Larger bounds that are already being solved are left to finish in the
+ * background rather than interrupted, since an interrupted solve that is past translation keeps
+ * running anyway and would count against AlloyInterface's limit on abandoned solves.
+ */
+public class BoundedSearch {
+    /**
+     * BoundSolver solves the model for a single bound. It is called concurrently for different
+     * bounds, so every call must compile and translate its own model.
+     */
+    public interface BoundSolver {
+        A4Solution solve(int bound) throws Err;
+    }
+
+    private final int threads;
+
+    public BoundedSearch(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * findShortest solves bounds 1 to limit and returns the solution for the smallest bound that is
+     * satisfiable.
+     * @param int limit
+     * @param BoundSolver solver
+     * @return A4Solution, or null if no bound up to limit is satisfiable.
+     * @throws Err if a bound smaller than every satisfiable bound could not be solved.
+     */
+    public A4Solution findShortest(int limit, BoundSolver solver) throws Err {
+        AtomicInteger smallestSat = new AtomicInteger(Integer.MAX_VALUE);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, limit)), runnable -> {
+            Thread thread = new Thread(runnable, "aldb-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<A4Solution>> results = new ArrayList<>();
+        boolean found = false;
+        try {
+            for (int bound = 1; bound <= limit; bound++) {
+                final int b = bound;
+                results.add(executor.submit(() -> {
+                    // A smaller bound is already known to be satisfiable, so this one cannot be the answer.
+                    if (b > smallestSat.get()) {
+                        return null;
+                    }
+                    A4Solution sol = solver.solve(b);
+                    if (sol.satisfiable()) {
+                        smallestSat.accumulateAndGet(b, Math::min);
+                    }
+                    return sol;
+                }));
+            }
+
+            // Results are taken in the order of the bounds, so the first satisfiable one is the answer.
+            for (int i = 0; i < results.size(); i++) {
+                A4Solution sol = await(results.get(i));
+                if (sol != null && sol.satisfiable()) {
+                    for (int j = i + 1; j < results.size(); j++) {
+                        results.get(j).cancel(false);
+                    }
+                    found = true;
+                    return sol;
+                }
+            }
+            return null;
+        } finally {
+            if (found) {
+                executor.shutdown();
+            } else {
+                // Interrupting the workers cancels the solves that are still running.
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static A4Solution await(Future<A4Solution> result) throws Err {
+        try {
+            return result.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Err) {
+                throw (Err) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -32,6 +32,21 @@ public class ConstraintManager {
         constraints.clear();
     }
 
+    // Returns the constraints by their IDs, which a session snapshot needs to keep them.
+    Map<Integer, String> getConstraintsByID() {
+        return constraints;
+    }
+
+    int getNextConstraintID() {
+        return nextConstraintID;
+    }
+
+    // Replaces the constraints with those of a session snapshot.
+    void restoreConstraints(Map<Integer, String> constraints, int nextConstraintID) {
+        this.constraints = new HashMap<>(constraints);
+        this.nextConstraintID = nextConstraintID;
+    }
+
     public List<String> getConstraints() {
         return new ArrayList<String>(constraints.values());
     }
@@ -4,14 +4,18 @@ import core.DashImageDisplay;
 import core.ImageDisplay;
 import core.JsonDrawing;
 import core.AlloyGUI;
+import state.StateCanonicalizer;
+import state.StateDictionary;
 import state.StateGraph;
 import state.StateNode;
+import state.StateNodeBuilder;
 import state.StatePath;
 
 import alloy.AlloyConstants;
 import alloy.AlloyInterface;
 import alloy.AlloyUtils;
 import alloy.ParsingConf;
+import alloy.PhaseStats;
 import alloy.SigData;
 import ca.uwaterloo.watform.core.DashUtilFcns;
 import ca.uwaterloo.watform.mainfunctions.MainFunctions;
@@ -28,16 +32,18 @@ import java.io.IOException;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,23 +60,38 @@ public class DashSimulationManager extends SimulationManager{
     private ParsingConf persistentParsingConf;  // Set by set conf - used across multiple models.
     private ParsingConf embeddedParsingConf;  // Set by load - used for the current model only.
     private SigData stateSigData;
+    private StateDictionary stateDictionary; // interns the state values of the loaded model
     private StatePath statePath;
     private StateGraph stateGraph;
     private Stack<A4Solution> activeSolutions;
     private AliasManager aliasManager;
     private ConstraintManager constraintManager;
     private GraphPrinter gp;
+    private final GraphRenderService renderService = new GraphRenderService(); // renders the graphs off the command thread
+    private final StateTreeLayout stateTreeLayout = new StateTreeLayout(); // in-process layout of the state tree
+    private final StepPrefetcher prefetcher = new StepPrefetcher(); // solves the next step and alt at the prompt
+    private int successorCap; // maximum number of successors enumerated after a single step, or 0 for none
+    private List<StateNode> successors; // enumerated successors of the state stepped from, browsed by alt
+    private int successorIndex; // position of the current state in successors
+    private boolean symmetryReduction; // deduplicate states that only differ by interchangeable atoms
+    private int searchThreads; // bounds solved at once by until and force, or 0 to search sequentially
     private ImageDisplay display;
     private DashImageDisplay dashdisplay;
     private boolean traceMode;
     private boolean diffMode;
+    private boolean graphvizLayout; // lay out the state tree with Graphviz instead of StateTreeLayout
     private DashModule d;// Whether differential output is enabled.
     private DashGUI dashGUI;
+    private RenderedGraph renderedStateTree; // latest rendering of the state tree
+    private RenderedGraph renderedControlStates; // latest rendering of the control states graph
+    private boolean viewsShown; // once shown, the views are updated as soon as a graph is rendered
     
     public DashSimulationManager() {
         scopes = new TreeMap<>();
         statePath = new StatePath();
         stateGraph = new StateGraph();
+        stateGraph.addListener(stateTreeLayout);
+        renderService.addListener(this::graphRendered);
         persistentParsingConf = new ParsingConf();
         embeddedParsingConf = null;
         activeSolutions = new Stack<>();
@@ -125,83 +146,118 @@ public class DashSimulationManager extends SimulationManager{
     
     //Dash-specific, given a transitionName and step size, add alloy predicate to force the transition be taken within the specified number of steps
     public boolean forceTransition(String transitionName,int limit) {
+        prefetcher.cancel();
     	String breakPredicate = AlloyUtils.getTransitionPredicate(transitionName);
-    	
-        for (int steps = 1; steps <= limit; steps++) {
-            try {
-                String curInitString;
-                if (stateGraph.size() > 1) {
-                    curInitString = statePath.getCurNode().getAlloyInitString();
-                } else {
-                    curInitString = alloyInitString;
-                }
-                //System.out.println( AlloyUtils.annotatedTransitionSystemForced(alloyModelString + curInitString + breakPredicate, getParsingConf(), steps));
-                AlloyUtils.writeToFile(
-                    AlloyUtils.annotatedTransitionSystemForced(alloyModelString + curInitString + breakPredicate, getParsingConf(), steps),
-                    alloyModelFile
-                );
-            } catch (IOException e) {
-                return false;
-            }
+        String curInitString;
+        if (stateGraph.size() > 1) {
+            curInitString = statePath.getCurNode().getAlloyInitString();
+        } else {
+            curInitString = alloyInitString;
+        }
+        String model = alloyModelString + curInitString + breakPredicate;
 
-            CompModule compModule = null;
+        A4Solution sol = null;
+        if (searchThreads > 0) {
+            ParsingConf conf = getParsingConf();
+            String modelPath = alloyModelFile.getAbsolutePath();
             try {
-                compModule = AlloyInterface.compile(alloyModelFile.getAbsolutePath());
+                sol = new BoundedSearch(searchThreads).findShortest(limit, steps -> AlloyInterface.run(
+                    AlloyInterface.compileFromStringUncached(AlloyUtils.annotatedTransitionSystemForced(model, conf, steps), modelPath)
+                ));
             } catch (Err e) {
                 return false;
             }
+        } else {
+            for (int steps = 1; steps <= limit; steps++) {
+                CompModule compModule = null;
+                try {
+                    compModule = compileModel(AlloyUtils.annotatedTransitionSystemForced(model, getParsingConf(), steps));
+                } catch (Err e) {
+                    return false;
+                }
 
-            A4Solution sol = null;
-            try {
-                sol = AlloyInterface.run(compModule);
-            } catch (Err e) {
-                return false;
-            }
+                try {
+                    sol = AlloyInterface.run(compModule);
+                } catch (Err e) {
+                    return false;
+                }
 
-            if (!sol.satisfiable()) {
+                if (sol.satisfiable()) {
+                    break;
+                }
                 // Breakpoints not hit for current step size. Try next step size.
-                continue;
+                sol = null;
             }
+        }
+        if (sol == null) {
+            System.out.println("Unable to force transition within specified number of steps.");
+            return false;
+        }
 
-            statePath.commitNodes();
+        statePath.commitNodes();
 
-            StateNode startNode = statePath.getCurNode();
+        StateNode startNode = statePath.getCurNode();
 
-            List<StateNode> stateNodes = getStateNodesForA4Solution(sol);
-            stateNodes.remove(0);
-           
-            statePath.setTempPath(stateNodes);
+        List<StateNode> stateNodes = getStateNodesForA4Solution(sol);
+        stateNodes.remove(0);
+       
+        statePath.setTempPath(stateNodes);
 
-            stateGraph.addNodes(startNode, stateNodes);
-            
-            this.activeSolutions.clear();
-            this.activeSolutions.push(sol);
-            
-            savePath(stateNodes);
-            updateHierarchy();
-            printGraph();
-            loadImage();
-            loadDash();
-            //statePath.printPath();
-        	//stateGraph.printGraph();
-            return true;
-        }
-        System.out.println("Unable to force transition within specified number of steps.");
-        return false;
+        stateGraph.addNodes(startNode, stateNodes);
+        
+        this.activeSolutions.clear();
+        this.activeSolutions.push(sol);
+        
+        this.successors = null;
+        
+        savePath(stateNodes);
+        updateHierarchy();
+        printGraph();
+        loadImage();
+        loadDash();
+        return true;
     }
     
     
     
     
     public void showDashGUI() { // Dash-specific, starts/refreshes the GUI displaying the interactive state tree and the control states graph
-    	
     	if (dashGUI==null) {
-    		dashGUI = new DashGUI("state_tree.json","control_states.json",this);
-    		dashGUI.refreshJsonWithDelay(1000);
+    		dashGUI = new DashGUI(this);
+    	}
+    	if (dashdisplay==null) {
+    		dashdisplay = new DashImageDisplay();
+    	}
+    	viewsShown = true;
+    	showGraph(renderedStateTree);
+    	showGraph(renderedControlStates);
+    }
+
+    // called on the render thread as soon as a graph has been rendered
+    private void graphRendered(RenderedGraph graph) {
+    	if (graph.getName().equals("state_tree")) {
+    		renderedStateTree = graph;
+    	} else if (graph.getName().equals("control_states")) {
+    		renderedControlStates = graph;
+    	} else {
     		return;
     	}
-    	dashGUI.refreshJsonWithDelay(1000);
-    	
+    	if (viewsShown) {
+    		showGraph(graph);
+    	}
+    }
+
+    private void showGraph(RenderedGraph graph) { // passes graph to the interactive viewer and the image display
+    	if (graph==null) {
+    		return;
+    	}
+    	if (graph==renderedStateTree) {
+    		dashGUI.update(graph.getLayout(), null);
+    		dashdisplay.update(graph.getImage(), null);
+    	} else {
+    		dashGUI.update(null, graph.getLayout());
+    		dashdisplay.update(null, graph.getImage());
+    	}
     }
     
     public void savePath() { //saves the path for the current node
@@ -225,52 +281,45 @@ public class DashSimulationManager extends SimulationManager{
         }
     }
     
-    //builds the .dot file using the information stored in stateGraph and generates the .png image
+    //renders the state tree, which is maintained as nodes are added to stateGraph, highlighting the current node
     public void printGraph() {
-    	gp = new GraphPrinter();
-    	for (int i = 0; i < stateGraph.size(); i++) {
-            StateNode node = stateGraph.getNode(i);
-            if (node.getSteps().size()!=0) {
-	            for (StateNode next_node : node.getSteps()) {
-	            	if (next_node.getTransitionName().isEmpty()) {
-	            		gp.addln("S"+Integer.toString(node.getIdentifier()) + " -> " + "S"+Integer.toString(next_node.getIdentifier()));
-	            	}
-	            	else {
-	            		gp.addln("S"+Integer.toString(node.getIdentifier()) + " -> " + "S"+Integer.toString(next_node.getIdentifier())+"[label="+next_node.getTransitionName() +"]");
-	            	}
-	            	
-	            }
-            }
-            else {
-            	gp.addln("S"+Integer.toString(node.getIdentifier()));
-            }
-            if (node.hasStable()) {
-	            if (node.getStable()) {
-	        		gp.addln("S"+Integer.toString(node.getIdentifier()) + "[color=green]");
-	        	}
-	            else {
-	            	gp.addln("S"+Integer.toString(node.getIdentifier()) + "[color=red]");
-	            }
-            }
-        }
-    	if (statePath.getCurNode()!=null) {
-	    	StateNode curr_node = statePath.getCurNode();
-	    	gp.addln("S"+Integer.toString(curr_node.getIdentifier())+ "[style=filled, fillcolor=yellow]"); //highlight curr node
-	    	
-	    	
+    	if (!shouldRender()) {
+    		return;
     	}
-	    gp.print("state_tree");
-	    gp.generateJson("state_tree");
-	    
+    	submitStateTree();
+    }
+
+    private void submitStateTree() {
+    	StateNode curr_node = statePath.getCurNode();
+    	if (graphvizLayout) {
+    		renderService.submit("state_tree", stateGraph.getStateTreeDOTString(curr_node));
+    		return;
+    	}
+    	renderService.submit("state_tree", () -> stateTreeLayout.render("state_tree", curr_node));
     }
     
     public void loadImage() {
-	    if (this.dashdisplay==null) {
-	 	   	this.dashdisplay=new DashImageDisplay();
-	 	}
-	    dashdisplay.refresh();
-	    dashdisplay.setVisible(true);
-	    
+    	// open the views once the graphs submitted so far have been rendered
+    	loadDash();
+    }
+
+    void renderGraphs() {
+        submitStateTree();
+        submitControlStates();
+        if (getRenderPolicy().showsViews()) {
+            showViews();
+        }
+    }
+
+    /**
+     * awaitRendering blocks until every graph submitted for rendering has been rendered.
+     */
+    public void awaitRendering() {
+        try {
+            renderService.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
     
     public boolean isTrace() {
@@ -285,6 +334,84 @@ public class DashSimulationManager extends SimulationManager{
         return diffMode;
     }
 
+    /**
+     * setGraphvizLayout selects whether the state tree is laid out by the external Graphviz dot
+     * binary or in process.
+     * @param boolean b
+     */
+    public void setGraphvizLayout(boolean b) {
+        graphvizLayout = b;
+    }
+
+    public boolean isGraphvizLayout() {
+        return graphvizLayout;
+    }
+
+    /**
+     * setPrefetch sets whether the next step and alt are solved in the background at the prompt.
+     * @param boolean b
+     */
+    public void setPrefetch(boolean b) {
+        prefetcher.setEnabled(b);
+    }
+
+    public boolean isPrefetch() {
+        return prefetcher.isEnabled();
+    }
+
+    /**
+     * setSymmetryReduction turns symmetry reduction on or off. When on, states that only differ by a
+     * permutation of the concrete atoms of the scoped sigs are represented by a single node in the
+     * state graph, and only one of them is explored.
+     * @param boolean b
+     */
+    public void setSymmetryReduction(boolean b) {
+        symmetryReduction = b;
+        if (isInitialized()) {
+            stateGraph.setCanonicalizer(getCanonicalizer());
+        }
+    }
+
+    public boolean isSymmetryReduction() {
+        return symmetryReduction;
+    }
+
+    /**
+     * setSearchThreads sets the number of bounds that until and force solve at once, each on its own
+     * thread, or makes them search sequentially if threads is 0.
+     * @param int threads
+     */
+    public void setSearchThreads(int threads) {
+        searchThreads = threads;
+    }
+
+    public int getSearchThreads() {
+        return searchThreads;
+    }
+
+    /**
+     * getPrefetchStats returns how many steps and alts were served by prefetched solutions.
+     * @return String
+     */
+    public String getPrefetchStats() {
+        return prefetcher.getStats();
+    }
+
+    /**
+     * prefetch starts solving a single step from the current state and the next alternative path
+     * in the background, replacing the prefetches for states the user has moved away from.
+     */
+    public void prefetch() {
+        if (!prefetcher.isEnabled() || !isInitialized() || isTrace()) {
+            return;
+        }
+        // alt does not solve while it browses enumerated successors.
+        A4Solution active = (activeSolutions.isEmpty() || successors != null) ? null : activeSolutions.peek();
+        prefetcher.prefetch(
+            statePath.getCurNode(), createStepSolve(AlloyUtils.getPathPredicate(new ArrayList<String>(), stateSigData), 1), active
+        );
+    }
+
     /**
      * isInitialized returns True iff a model or trace has been loaded.
      * @return boolean
@@ -309,6 +436,7 @@ public class DashSimulationManager extends SimulationManager{
     			targetpath.add(stateGraph.getNodeById(i));
     		}
     		statePath.setPath(targetpath);
+    		successors = null;
     		printGraph();
     		loadImage();
     		loadDash();
@@ -322,6 +450,7 @@ public class DashSimulationManager extends SimulationManager{
      * @return boolean
      */
     public boolean initialize(File file, boolean isTrace) {
+        prefetcher.cancel();
         ParsingConf oldEmbeddedParsingConf = embeddedParsingConf;
         
         if (file.getName().substring(file.getName().lastIndexOf('.') + 1).equals("dsh")) {
@@ -371,7 +500,6 @@ public class DashSimulationManager extends SimulationManager{
 	    
 	   
 	    //showTransitions();
-	    //gp.print("control_states");
 	    printGraph();
 	    savePath();
 	    
@@ -501,6 +629,13 @@ public class DashSimulationManager extends SimulationManager{
 	
 	//Dash-specific, updates the control state .dot file
 	public void updateHierarchy() {
+		if (!shouldRender()) {
+			return;
+		}
+		submitControlStates();
+	}
+
+	private void submitControlStates() {
 		gp = new GraphPrinter();
 		
     	
@@ -512,20 +647,32 @@ public class DashSimulationManager extends SimulationManager{
     	}
     	
     	addTransitions(gp);
-	    gp.print("control_states");
-	    gp.generateJson("control_states");
+	    renderService.submit("control_states", gp.toDot("control_states"));
 	    
 	    
     }
 	
 	public void loadDash() {
-		showDashGUI();
-    	dashdisplay.refresh();
-    	dashdisplay.setVisible(true);
+		if (!getRenderPolicy().showsViews() || !shouldRender()) {
+			return;
+		}
+		showViews();
+	}
+
+	private void showViews() {
+		// later renders reach the views through graphRendered
+		renderService.runWhenRendered(() -> {
+			if (!viewsShown) {
+				showDashGUI();
+			}
+		});
 	}
 	
 	//Dash-specific, updates the control state .dot file and highlights current node
 	public void updateHierarchy(int id) {
+		if (!shouldRender()) {
+			return;
+		}
 		gp = new GraphPrinter();
 		
     	
@@ -534,11 +681,8 @@ public class DashSimulationManager extends SimulationManager{
 	    	List<String> controlstates=curr_node.getControlStateNames();
 	    	buildHierarchy(d, d.getRootName(), gp,controlstates);
     	}
-	    gp.print("control_states");
-	    gp.generateJson("control_states");
-	    showDashGUI();
-	    dashdisplay.refresh();
-	    dashdisplay.setVisible(true);
+	    renderService.submit("control_states", gp.toDot("control_states"));
+	    loadDash();
     }
     
 	// replace the '/'s in dash states and transitions with '_'
@@ -565,7 +709,9 @@ public class DashSimulationManager extends SimulationManager{
         // If the user was on some alternate path, we need to perform `alt` until we get back
         // to the correct StateNode.
         while (!statePath.getCurNode().equals(targetNode)) {
-            selectAlternatePath(false);
+            if (!selectAlternatePath(false)) {
+                break;
+            }
         }
 
         // Ensure the ID is set when reverse-stepping back to an alternative initial state.
@@ -607,37 +753,20 @@ public class DashSimulationManager extends SimulationManager{
         statePath.commitNodes();
         
         
-        String pathPredicate = AlloyUtils.getPathPredicate(constraints, stateSigData);
-        try {
-            String curInitString;
-            if (stateGraph.size() > 1) {
-                curInitString = statePath.getCurNode().getAlloyInitString();
-            } else {
-                curInitString = alloyInitString;
-            }
-            AlloyUtils.writeToFile(
-                AlloyUtils.annotatedTransitionSystemStep(alloyModelString + curInitString + pathPredicate, getParsingConf(), steps),
-                alloyModelFile
-            );
-        } catch (IOException e) {
-            System.out.println("Cannot perform step. I/O failed.");
-            return false;
-        }
-
-        CompModule compModule = null;
-        try {
-            compModule = AlloyInterface.compile(alloyModelFile.getAbsolutePath());
-        } catch (Err e) {
-            System.out.println("Cannot perform step. Internal error.");
-            return false;
+        A4Solution sol = null;
+        if (steps == 1 && constraints.isEmpty()) {
+            sol = prefetcher.takeStep(statePath.getCurNode());
+        } else {
+            prefetcher.cancel();
         }
 
-        A4Solution sol = null;
-        try {
-            sol = AlloyInterface.run(compModule);
-        } catch (Err e) {
-            System.out.println("Cannot perform step. Internal error.");
-            return false;
+        if (sol == null) {
+            try {
+                sol = createStepSolve(AlloyUtils.getPathPredicate(constraints, stateSigData), steps).solve();
+            } catch (Err e) {
+                System.out.println("Cannot perform step. Internal error.");
+                return false;
+            }
         }
 
         if (!sol.satisfiable()) {
@@ -659,6 +788,10 @@ public class DashSimulationManager extends SimulationManager{
 
         this.activeSolutions.clear();
         this.activeSolutions.push(sol);
+        this.successors = null;
+        if (successorCap > 0 && steps == 1 && constraints.isEmpty()) {
+            cacheSuccessors(startNode, stateNodes.get(0));
+        }
         //statePath.printPath();
         printGraph();
         loadImage();
@@ -668,6 +801,9 @@ public class DashSimulationManager extends SimulationManager{
     }
 
     public boolean selectAlternatePath(boolean reverse) {
+        if (successors != null) {
+            return selectSuccessor(reverse ? successorIndex - 1 : successorIndex + 1);
+        }
         if (activeSolutions.isEmpty()) {
             return false;
         }
@@ -682,6 +818,7 @@ public class DashSimulationManager extends SimulationManager{
             activeSolution = activeSolutions.peek();
         } else {
             activeSolution = activeSolutions.peek();
+            prefetcher.takeAlternative(activeSolution);
             if (!activeSolution.next().satisfiable()) {
                 return false;
             }
@@ -717,67 +854,50 @@ public class DashSimulationManager extends SimulationManager{
     /**
      * performUntil steps the transition system up to `limit` state transitions,
      * until at least one of the constraints in the breakpoint list is satisfied.
+     *
+     * Rather than solving for every step count from 1 to `limit`, a single solve first decides
+     * whether any breakpoint is reachable within `limit` transitions. The shortest number of
+     * transitions that hits a breakpoint is then found by bisection, since reaching a breakpoint
+     * "at or before" a step count is monotonic in the step count.
      * @param limit
      * @return boolean
      */
     public boolean performUntil(int limit) {
+        prefetcher.cancel();
         String breakPredicate = AlloyUtils.getBreakPredicate(constraintManager.getConstraints(), stateSigData);
-        
-        for (int steps = 1; steps <= limit; steps++) {
-            try {
-                String curInitString;
-                if (stateGraph.size() > 1) {
-                    curInitString = statePath.getCurNode().getAlloyInitString();
-                } else {
-                    curInitString = alloyInitString;
-                }
-                AlloyUtils.writeToFile(
-                    AlloyUtils.annotatedTransitionSystemUntil(alloyModelString + curInitString + breakPredicate, getParsingConf(), steps),
-                    alloyModelFile
-                );
-            } catch (IOException e) {
-                return false;
-            }
-
-            CompModule compModule = null;
-            try {
-                compModule = AlloyInterface.compile(alloyModelFile.getAbsolutePath());
-            } catch (Err e) {
-                return false;
-            }
+        String curInitString;
+        if (stateGraph.size() > 1) {
+            curInitString = statePath.getCurNode().getAlloyInitString();
+        } else {
+            curInitString = alloyInitString;
+        }
+        String model = alloyModelString + curInitString + breakPredicate;
 
-            A4Solution sol = null;
-            try {
-                sol = AlloyInterface.run(compModule);
-            } catch (Err e) {
-                return false;
-            }
+        A4Solution sol = (searchThreads > 0) ? solveUntilParallel(model, limit) : solveUntilShortest(model, limit);
+        if (sol == null) {
+            return false;
+        }
 
-            if (!sol.satisfiable()) {
-                // Breakpoints not hit for current step size. Try next step size.
-                continue;
-            }
+        statePath.commitNodes();
 
-            statePath.commitNodes();
+        StateNode startNode = statePath.getCurNode();
 
-            StateNode startNode = statePath.getCurNode();
+        List<StateNode> stateNodes = getStateNodesForA4Solution(sol);
+        stateNodes.remove(0);
+        statePath.setTempPath(stateNodes);
 
-            List<StateNode> stateNodes = getStateNodesForA4Solution(sol);
-            stateNodes.remove(0);
-            statePath.setTempPath(stateNodes);
+        stateGraph.addNodes(startNode, stateNodes);
 
-            stateGraph.addNodes(startNode, stateNodes);
+        this.activeSolutions.clear();
+        this.activeSolutions.push(sol);
 
-            this.activeSolutions.clear();
-            this.activeSolutions.push(sol);
-            updateHierarchy();
-            printGraph();
-            loadImage();
-            loadDash();
-            savePath();
-            return true;
-        }
-        return false;
+        this.successors = null;
+        updateHierarchy();
+        printGraph();
+        loadImage();
+        loadDash();
+        savePath();
+        return true;
     }
 
     /**
@@ -790,23 +910,16 @@ public class DashSimulationManager extends SimulationManager{
             statePath.decrementPosition(statePath.getPosition(), traceMode);
             return true;
         }
+        prefetcher.cancel();
+        CompModule compModule = null;
         try {
-            AlloyUtils.writeToFile(
+            compModule = compileModel(
                 AlloyUtils.annotatedTransitionSystem(
                     this.alloyModelString + this.alloyInitString,
                     getParsingConf(),
                     0
-                ),
-                alloyModelFile
+                )
             );
-        } catch (IOException e) {
-            System.out.println("error. I/O failed, cannot re-initialize model.");
-            return false;
-        }
-
-        CompModule compModule = null;
-        try {
-            compModule = AlloyInterface.compile(alloyModelFile.getAbsolutePath());
         } catch (Err e) {
             System.out.println("internal error.");
             return false;
@@ -829,6 +942,8 @@ public class DashSimulationManager extends SimulationManager{
 
         activeSolutions.clear();
         activeSolutions.push(sol);
+
+        this.successors = null;
         updateHierarchy();
         printGraph();
         loadImage();
@@ -844,20 +959,12 @@ public class DashSimulationManager extends SimulationManager{
      * @return boolean
      */
     public boolean validateConstraint(String constraint) {
+        prefetcher.cancel();
         String breakPredicate = AlloyUtils.getBreakPredicate(Arrays.asList(constraint), stateSigData);
 
 
         try {
-            AlloyUtils.writeToFile(
-                alloyModelString + alloyInitString + breakPredicate,
-                alloyModelFile
-            );
-        } catch (IOException e) {
-            return false;
-        }
-
-        try {
-            AlloyInterface.compile(alloyModelFile.getAbsolutePath());
+            compileModel(alloyModelString + alloyInitString + breakPredicate);
         } catch (Err e) {
             return false;
         }
@@ -938,23 +1045,14 @@ public class DashSimulationManager extends SimulationManager{
         }
 
         String tempModelFilename = TEMP_FILENAME_PREFIX + model.getName();
-        // Note that the temp model file must be created in the same directory as the input model
-        // in order for Alloy to correctly find imported submodules.
-        File tempModelFile = new File(model.getParentFile(), tempModelFilename);
-        tempModelFile.deleteOnExit();
-
-        try {
-            Files.copy(model.toPath(), tempModelFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-        } catch (Exception e) {
-            System.out.println("error. I/O failed.");
-            return false;
-        }
-        
-        alloyModelFile = tempModelFile;
+        // Generated models are compiled in memory and never written to disk, but they are attributed
+        // to a temp model path in the same directory as the input model in order for Alloy to
+        // correctly find imported submodules.
+        alloyModelFile = new File(model.getAbsoluteFile().getParentFile(), tempModelFilename);
 
         String modelString;
         try {
-            modelString = AlloyUtils.readFromFile(alloyModelFile);
+            modelString = AlloyUtils.readFromFile(model);
         } catch (IOException e) {
             System.out.println("error. Failed to read file.");
             return false;
@@ -1016,23 +1114,15 @@ public class DashSimulationManager extends SimulationManager{
                 AlloyUtils.getConcreteSigsDefinition(getParsingConf().getAdditionalSigScopes()) +
                 modelString.substring(initEndIndex + 1, modelString.length());
 
+        CompModule compModule = null;
         try {
-            AlloyUtils.writeToFile(
+            compModule = compileModel(
                 AlloyUtils.annotatedTransitionSystem(
                     this.alloyModelString + this.alloyInitString,
                     getParsingConf(),
                     0
-                ),
-                alloyModelFile
+                )
             );
-        } catch (IOException e) {
-            System.out.println("error. I/O failed, cannot initialize model.");
-            return false;
-        }
-
-        CompModule compModule = null;
-        try {
-            compModule = AlloyInterface.compile(alloyModelFile.getAbsolutePath());
         } catch (Err e) {
             System.out.println("internal error.");
             return false;
@@ -1061,15 +1151,18 @@ public class DashSimulationManager extends SimulationManager{
         //System.out.println(getParsingConf().getStateSigName());
         
         stateSigData = new SigData(stateSig);
+        stateDictionary = new StateDictionary(stateSigData);
 
         List<StateNode> initialNodes = getStateNodesForA4Solution(sol);
         statePath.clearPath();
         statePath.setTempPath(initialNodes);
+        stateGraph.setCanonicalizer(getCanonicalizer());
         stateGraph.initWithNodes(initialNodes);
 
         this.traceMode = false;
         this.activeSolutions.clear();
         this.activeSolutions.push(sol);
+        this.successors = null;
 
         return true;
     }
@@ -1095,6 +1188,7 @@ public class DashSimulationManager extends SimulationManager{
         }
 
         stateSigData = new SigData(stateSig);
+        stateDictionary = new StateDictionary(stateSigData);
 
         List<StateNode> stateNodes = getStateNodesForA4Solution(sol);
         if (stateNodes.isEmpty()) {
@@ -1104,15 +1198,26 @@ public class DashSimulationManager extends SimulationManager{
 
         statePath.initWithPath(stateNodes);
         statePath.setPosition(0);
+        stateGraph.setCanonicalizer(getCanonicalizer());
         stateGraph.initWithNodes(stateNodes);
 
         this.traceMode = true;
         this.activeSolutions.clear();
+        this.successors = null;
 
         return true;
     }
 
     private List<StateNode> getStateNodesForA4Solution(A4Solution sol) {
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.EXTRACT);
+        try {
+            return extractStateNodes(sol);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private List<StateNode> extractStateNodes(A4Solution sol) {
         List<StateNode> stateNodes = new ArrayList<>();
 
         Sig stateSig = AlloyInterface.getSigFromA4Solution(sol, getParsingConf().getStateSigName());
@@ -1122,32 +1227,42 @@ public class DashSimulationManager extends SimulationManager{
 
         if (stateSigData == null) {
             stateSigData = new SigData(stateSig);
+            stateDictionary = new StateDictionary(stateSigData);
         }
 
-        int steps = sol.eval(stateSig).size();
-        for (int i = 0; i < steps; i++) {
-            stateNodes.add(new StateNode(stateSigData, getParsingConf()));
+        // Map each state atom to its index once, rather than parsing it again for every tuple.
+        Map<String, Integer> stateIndices = new HashMap<>();
+        for (A4Tuple tuple : sol.eval(stateSig)) {
+            String atom = tuple.atom(0);
+            stateIndices.put(atom, Integer.parseInt(atom.substring(atom.lastIndexOf('$') + 1)));
         }
 
+        StateNodeBuilder builder = new StateNodeBuilder(
+            stateSigData, getParsingConf(), stateDictionary, stateIndices.size()
+        );
+        StringBuilder value = new StringBuilder();
         for (Sig.Field field : stateSig.getFields()) {
+            int fieldIndex = builder.getFieldIndex(field.label);
             for (A4Tuple tuple : sol.eval(field)) {
-                String atom = tuple.atom(0);
-                StateNode node = stateNodes.get(
-                    Integer.parseInt(atom.split(AlloyConstants.ALLOY_ATOM_SEPARATOR)[1])
-                );
-                String tupleString = tuple.toString();
-                node.addValueToField(
-                    field.label,
-                    tupleString
-                        .substring(
-                            tupleString.indexOf(AlloyConstants.SET_DELIMITER) + 2, tupleString.length()
-                        )
-                        // Sigs will only ever have $0 as a suffix since we control their scope.
-                        .replace(AlloyConstants.VALUE_SUFFIX, "")
-                    );
+                // Skip the state atom and join the remaining atoms in Alloy syntax.
+                value.setLength(0);
+                for (int i = 1; i < tuple.arity(); i++) {
+                    if (i > 1) {
+                        value.append(AlloyConstants.SET_DELIMITER);
+                    }
+                    String atom = tuple.atom(i);
+                    // Sigs will only ever have $0 as a suffix since we control their scope.
+                    if (atom.endsWith(AlloyConstants.VALUE_SUFFIX)) {
+                        value.append(atom, 0, atom.length() - AlloyConstants.VALUE_SUFFIX.length());
+                    } else {
+                        value.append(atom);
+                    }
+                }
+                builder.addValue(stateIndices.get(tuple.atom(0)), fieldIndex, value.toString());
             }
         }
 
+        stateNodes.addAll(builder.build());
         return stateNodes;
     }
 
@@ -1183,7 +1298,329 @@ public class DashSimulationManager extends SimulationManager{
         }
     }
 
+    /**
+     * solveUntilShortest solves for the shortest path from the current state, of at most `limit`
+     * transitions, that ends in a breakpoint hit, narrowing down its length by binary search.
+     * @param String model, int limit
+     * @return A4Solution, or null if no breakpoint is hit within limit steps or solving failed.
+     */
+    private A4Solution solveUntilShortest(String model, int limit) {
+        A4Solution sol = solveUntilWithin(model, limit);
+        if (sol == null || !sol.satisfiable()) {
+            return null;
+        }
+
+        // Invariant: a breakpoint is hit within `hi` steps, and not within fewer than `lo` steps.
+        // `sol` is only kept while it hits the breakpoint at exactly its last state, so that
+        // no unconstrained states trailing the hit end up in the state graph.
+        int lo = 1;
+        int hi = AlloyInterface.getUntilHitIndex(sol);
+        if (hi < lo) {
+            return null;
+        }
+        if (hi != limit) {
+            sol = null;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) / 2;
+            A4Solution midSol = solveUntilWithin(model, mid);
+            if (midSol == null) {
+                return null;
+            }
+
+            if (midSol.satisfiable()) {
+                hi = AlloyInterface.getUntilHitIndex(midSol);
+                sol = (hi == mid) ? midSol : null;
+            } else {
+                lo = mid + 1;
+            }
+        }
+
+        if (sol == null) {
+            sol = solveUntilWithin(model, hi);
+            if (sol == null || !sol.satisfiable()) {
+                return null;
+            }
+        }
+
+        return sol;
+    }
+
+    /**
+     * solveUntilParallel solves for the same path as solveUntilShortest, but solves every length up
+     * to `limit` at once on searchThreads threads, each with its own compiled model.
+     * @param String model, int limit
+     * @return A4Solution, or null if no breakpoint is hit within limit steps or solving failed.
+     */
+    private A4Solution solveUntilParallel(String model, int limit) {
+        ParsingConf conf = getParsingConf();
+        String modelPath = alloyModelFile.getAbsolutePath();
+        try {
+            // The model for the smallest satisfiable length hits the breakpoint at its last state.
+            return new BoundedSearch(searchThreads).findShortest(limit, steps -> AlloyInterface.run(
+                AlloyInterface.compileFromStringUncached(AlloyUtils.annotatedTransitionSystemUntilWithin(model, conf, steps), modelPath)
+            ));
+        } catch (Err e) {
+            return null;
+        }
+    }
+
+    /**
+     * solveUntilWithin solves for a breakpoint hit within `steps` transitions of the given model.
+     * @param String model, int steps
+     * @return A4Solution, or null if the model could not be compiled or solved.
+     */
+    private A4Solution solveUntilWithin(String model, int steps) {
+        try {
+            return AlloyInterface.run(
+                compileModel(AlloyUtils.annotatedTransitionSystemUntilWithin(model, getParsingConf(), steps))
+            );
+        } catch (Err e) {
+            return null;
+        }
+    }
+
+    /**
+     * createStepSolve returns a Solve for `steps` transitions from the current node along the path
+     * in pathPredicate. The node is captured when the Solve is created, so that it can be solved
+     * later on the prefetch thread.
+     * @param String pathPredicate, int steps
+     * @return StepPrefetcher.Solve
+     */
+    private StepPrefetcher.Solve createStepSolve(String pathPredicate, int steps) {
+        StateNode node = statePath.getCurNode();
+        // Until a state has been reached, the step starts from the init predicate of the model.
+        String curInitString = (stateGraph.size() > 1) ? node.getAlloyInitString() : alloyInitString;
+        boolean fromState = stateGraph.size() > 1;
+        return () -> {
+            if (fromState) {
+                A4Solution sol = solveStepFromState(node, pathPredicate, steps);
+                if (sol != null) {
+                    return sol;
+                }
+            }
+            // The model is regenerated in full if the state could not be pinned on the template.
+            return AlloyInterface.run(compileModel(
+                AlloyUtils.annotatedTransitionSystemStep(alloyModelString + curInitString + pathPredicate, getParsingConf(), steps)
+            ));
+        };
+    }
+
+    /**
+     * setSuccessorCap sets the maximum number of distinct successors that are enumerated after a
+     * single step, or turns enumeration off if cap is 0. Once the successors of a state have been
+     * enumerated, they are all added to the state graph and alt browses them without solving.
+     * @param int cap
+     */
+    public void setSuccessorCap(int cap) {
+        successorCap = cap;
+    }
+
+    public int getSuccessorCap() {
+        return successorCap;
+    }
+
+    /**
+     * enumerateSuccessors solves for the distinct states one transition away from the current state
+     * and passes them to consumer as they are found, until cap states have been found or consumer
+     * returns false. The states are added to the state graph as successors of the current state.
+     * @param int cap, Predicate<StateNode> consumer
+     * @return int, the number of states passed to consumer, or -1 if the step could not be solved.
+     */
+    public int enumerateSuccessors(int cap, Predicate<StateNode> consumer) {
+        if (!isInitialized() || isTrace()) {
+            return -1;
+        }
+        prefetcher.cancel();
+        StateNode startNode = statePath.getCurNode();
+        Set<StateNode> found = new LinkedHashSet<>();
+        try {
+            forEachSuccessor(compileModel(getSuccessorTemplate()), startNode, found, cap, consumer);
+        } catch (Err e) {
+            return -1;
+        } finally {
+            stateGraph.addSuccessors(startNode, new ArrayList<>(found));
+        }
+        return found.size();
+    }
+
+    /**
+     * explore adds the states up to `depth` transitions away from the current state to the state
+     * graph, exploring them breadth-first on one worker thread per processor, and stopping early
+     * once maxStates distinct states have been found.
+     * @param int depth, int maxStates, StateExplorer.ProgressListener listener
+     * @return boolean
+     */
+    public boolean explore(int depth, int maxStates, StateExplorer.ProgressListener listener) {
+        if (isTrace()) {
+            System.out.println("Cannot explore a trace.");
+            return false;
+        }
+        prefetcher.cancel();
+
+        // Every worker compiles its own copy of the single step template once, and then only pins
+        // each state it explores on it.
+        String template = getSuccessorTemplate();
+        String modelPath = alloyModelFile.getAbsolutePath();
+        StateExplorer explorer = new StateExplorer(() -> {
+            CompModule module = AlloyInterface.compileFromStringUncached(template, modelPath);
+            return node -> {
+                Set<StateNode> found = new LinkedHashSet<>();
+                forEachSuccessor(module, node, found, maxStates, successor -> true);
+                return new ArrayList<>(found);
+            };
+        }, Runtime.getRuntime().availableProcessors());
+        explorer.setCanonicalizer(getCanonicalizer());
+
+        Map<StateNode, List<StateNode>> edges;
+        try {
+            edges = explorer.explore(statePath.getCurNode(), depth, maxStates, listener);
+        } catch (Err e) {
+            System.out.println("Cannot explore. Internal error.");
+            return false;
+        }
+
+        for (Map.Entry<StateNode, List<StateNode>> entry : edges.entrySet()) {
+            stateGraph.addSuccessors(entry.getKey(), entry.getValue());
+        }
+        printGraph();
+        updateHierarchy();
+        loadImage();
+        loadDash();
+        return true;
+    }
+
+    /**
+     * getSuccessorTemplate returns the single step transition system that successors are solved on,
+     * with an unconstrained init predicate so that any state can be pinned as its first state.
+     * @return String
+     */
+    private String getSuccessorTemplate() {
+        return AlloyUtils.annotatedTransitionSystemStep(
+            alloyModelString + AlloyUtils.getUnconstrainedInitPredicate(getParsingConf()) +
+                AlloyUtils.getPathPredicate(new ArrayList<String>(), stateSigData),
+            getParsingConf(),
+            1
+        );
+    }
+
+    /**
+     * forEachSuccessor solves template, compiled from getSuccessorTemplate, for the distinct states one
+     * transition away from node, adds them to found and passes them to consumer, until found holds cap
+     * states or consumer returns false. Every solve blocks the states already in found, so each one
+     * yields a new state, and solutions that only differ outside of the state sig are never enumerated.
+     * @param CompModule template, StateNode node, Set<StateNode> found, int cap, Predicate<StateNode> consumer
+     * @throws Err if a successor could not be solved.
+     */
+    private void forEachSuccessor(CompModule template, StateNode node, Set<StateNode> found, int cap, Predicate<StateNode> consumer) throws Err {
+        StringBuilder constraint = new StringBuilder("(")
+            .append(AlloyUtils.getFirstStateConstraint(node.getAlloyStateConstraints()))
+            .append(")");
+        for (StateNode successor : found) {
+            appendBlockingConstraint(constraint, successor);
+        }
+        while (found.size() < cap) {
+            A4Solution sol = AlloyInterface.runWithConstraint(template, constraint.toString());
+            if (!sol.satisfiable()) {
+                return;
+            }
+            StateNode successor = getStateNodesForA4Solution(sol).get(1);
+            // A state that was blocked already would be found again by every further solve.
+            if (!found.add(successor) || !consumer.test(successor)) {
+                return;
+            }
+            appendBlockingConstraint(constraint, successor);
+        }
+    }
+
+    private static void appendBlockingConstraint(StringBuilder constraint, StateNode successor) {
+        constraint.append(" and not (")
+            .append(AlloyUtils.getNextStateConstraint(successor.getAlloyStateConstraints()))
+            .append(")");
+    }
+
+    /**
+     * cacheSuccessors enumerates the successors of startNode, beginning with first, the state a single
+     * step from it reached, and adds them to the state graph, so that alt can browse them without solving.
+     * @param StateNode startNode, StateNode first
+     */
+    private void cacheSuccessors(StateNode startNode, StateNode first) {
+        Set<StateNode> found = new LinkedHashSet<>();
+        found.add(first);
+        try {
+            forEachSuccessor(compileModel(getSuccessorTemplate()), startNode, found, successorCap, successor -> true);
+        } catch (Err e) {
+            // Keep the successors found so far.
+        }
+        successors = new ArrayList<>(found);
+        stateGraph.addSuccessors(startNode, successors);
+        successorIndex = 0;
+    }
+
+    /**
+     * selectSuccessor moves to the successor at index in the enumerated successors.
+     * @param int index
+     * @return boolean, false if there is no successor at index.
+     */
+    private boolean selectSuccessor(int index) {
+        if (index < 0 || index >= successors.size()) {
+            return false;
+        }
+        successorIndex = index;
+        statePath.setTempPath(Arrays.asList(successors.get(index)));
+        printGraph();
+        updateHierarchy();
+        loadImage();
+        loadDash();
+        savePath();
+        return true;
+    }
+
+    /**
+     * solveStepFromState solves for `steps` transitions from node along the path in pathPredicate.
+     *
+     * The transition system is generated with an unconstrained init predicate, so it does not depend
+     * on node and its compiled module is reused from the module cache for every step with the same
+     * number of steps and path. node is then pinned as the first state by a constraint that is parsed
+     * on its own against the compiled module, which avoids parsing and typechecking the whole model
+     * again for every step.
+     * @param StateNode node, String pathPredicate, int steps
+     * @return A4Solution, or null if the template could not be compiled or solved.
+     */
+    private A4Solution solveStepFromState(StateNode node, String pathPredicate, int steps) {
+        try {
+            CompModule template = compileModel(
+                AlloyUtils.annotatedTransitionSystemStep(
+                    alloyModelString + AlloyUtils.getUnconstrainedInitPredicate(getParsingConf()) + pathPredicate,
+                    getParsingConf(),
+                    steps
+                )
+            );
+            return AlloyInterface.runWithConstraint(
+                template, AlloyUtils.getFirstStateConstraint(node.getAlloyStateConstraints())
+            );
+        } catch (Err e) {
+            return null;
+        }
+    }
+
+    /**
+     * compileModel compiles generated Alloy source in memory, resolving imports relative to the
+     * directory of the active model.
+     * @param String modelText
+     * @return CompModule
+     * @throws Err if the source fails to compile.
+     */
+    private CompModule compileModel(String modelText) throws Err {
+        return AlloyInterface.compileFromString(modelText, alloyModelFile.getAbsolutePath());
+    }
+
     private ParsingConf getParsingConf() {
         return embeddedParsingConf != null ? embeddedParsingConf : persistentParsingConf;
     }
+
+    // Returns the canonicalizer for the concrete sigs of the current model if symmetry reduction is on.
+    private StateCanonicalizer getCanonicalizer() {
+        return symmetryReduction ? new StateCanonicalizer(getParsingConf().getAdditionalSigScopes()) : null;
+    }
 }
@@ -1,21 +1,19 @@
 package simulation;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import javax.imageio.ImageIO;
+
+import org.json.JSONObject;
+import java.nio.file.StandardCopyOption;
  
 public class GraphPrinter {
  
     private StringBuilder graphBuilder = new StringBuilder();
-    private String filePrefix;
  
     public GraphPrinter() {}
  
-    /**
-     * @param filePrefix Only put filename prefix E.g. File1, File2, MyNewFile, myfile etc. It will use the filePrefix to create output dot file and png file with same name.
-     */
-    public GraphPrinter(String filePrefix) {
-        this.filePrefix = filePrefix;
-    }
- 
     /**
      * @param line  line contains a valid dot file graphviz text
      */
@@ -32,51 +30,44 @@ public class GraphPrinter {
     }
  
     /**
-     * Creates an output dot file and uses that to create graphviz png output using following command
-     * dot -Tpng <filePrefix>.dot -o <filePrefix>.png
-     * If you want to change the certain format, change below.
+     * toDot wraps the lines added so far into a complete dot graph for the graph named prefix.
+     * @param String prefix
+     * @return String
      */
-    public void print(String prefix) {
-        try {
-        	filePrefix = prefix;
-        	if (prefix.equals("control_states")) {
-        		graphBuilder.insert(0, "compound=true \n");
-            }
-            graphBuilder.insert(0, "digraph G {").append("\n");
-           
-            graphBuilder.append("}").append("\n");
-            writeTextToFile(filePrefix + ".dot", graphBuilder.toString());
- 
-            StringBuilder command = new StringBuilder();
-            command.append("dot -Tpng ").    // output type
-                    append(filePrefix).append(".dot ").   // input dot file
-                    append("-o ").append(filePrefix).append(".png");  // output image
- 
-            executeCommand(command.toString());
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    public String toDot(String prefix) {
+        StringBuilder sb = new StringBuilder("digraph G {");
+        if (prefix.equals("control_states")) {
+            sb.append("compound=true \n");
         }
+        sb.append(graphBuilder).append("\n");
+        sb.append("}").append("\n");
+        return sb.toString();
     }
-    
-    
-    public void generateJson(String prefix) {
-    	//System.out.println("generating Json...");
-        try {
-        	filePrefix = prefix;
-            
-            StringBuilder command = new StringBuilder();
-            command.append("dot -Tjson ").    // output type
-                    append(filePrefix).append(".dot ").   // input dot file
-                    append("-o ").append(filePrefix).append(".json");  // output json
-            //System.out.println(command.toString());
-            executeCommand(command.toString());
-        } catch (Exception ex) {
-            ex.printStackTrace();
+
+    /**
+     * render writes dotText to <prefix>.dot and lays it out into <prefix>.png and <prefix>.json.
+     * Each output is produced under a temporary name and then moved into place, so readers never
+     * see a partially written file.
+     * @param String prefix
+     * @param String dotText
+     * @return RenderedGraph read back from the output files
+     */
+    public static RenderedGraph render(String prefix, String dotText) throws Exception {
+        writeTextToFile(prefix + ".dot", dotText);
+        for (String format : new String[] {"png", "json"}) {
+            File output = new File(prefix + "." + format);
+            File tempOutput = new File(prefix + "." + format + ".tmp");
+            executeCommand("dot -T" + format + " " + prefix + ".dot -o " + tempOutput.getPath());
+            Files.move(tempOutput.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
+        return new RenderedGraph(
+            prefix,
+            new JSONObject(new String(Files.readAllBytes(new File(prefix + ".json").toPath()))),
+            ImageIO.read(new File(prefix + ".png"))
+        );
     }
-    
-    
-    private void executeCommand(String command) throws Exception {
+
+    private static void executeCommand(String command) throws Exception {
         Process process = Runtime.getRuntime().exec(command);
         int exitCode = process.waitFor();
         if (exitCode != 0) {
@@ -85,7 +76,7 @@ public class GraphPrinter {
     }
 
  
-    private void writeTextToFile(String fileName, String text) throws IOException {
+    private static void writeTextToFile(String fileName, String text) throws IOException {
         FileOutputStream outputStream = new FileOutputStream(fileName);
         outputStream.write(text.getBytes());
         outputStream.close();
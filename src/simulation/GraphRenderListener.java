@@ -0,0 +1,12 @@
+package simulation;
+
+/**
+ * GraphRenderListener is notified by GraphRenderService each time a graph has been rendered.
+ */
+public interface GraphRenderListener {
+    /**
+     * graphRendered is called on the render thread with the newly rendered graph.
+     * @param RenderedGraph graph
+     */
+    void graphRendered(RenderedGraph graph);
+}
@@ -0,0 +1,177 @@
+package simulation;
+
+import alloy.PhaseStats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GraphRenderService renders graphs on a background thread so that commands can
+ * return as soon as the solver has finished. Requests are coalesced: while a render is running,
+ * newer requests for the same graph replace older ones, and only the latest graph is rendered.
+ */
+public class GraphRenderService {
+    /**
+     * RenderTask renders one graph.
+     */
+    public interface RenderTask {
+        RenderedGraph render() throws Exception;
+    }
+
+    private final Map<String, RenderTask> pending = new LinkedHashMap<>(); // graph prefix -> latest task
+    private final List<Runnable> callbacks = new ArrayList<>(); // to run once pending graphs are rendered
+    private final List<GraphRenderListener> listeners = new ArrayList<>();
+    private MessageListener messageListener = System.out::println;
+    private boolean busy;
+    private Thread worker;
+    private long requestCount;
+    private long renderCount;
+
+    /**
+     * addListener registers listener to receive every graph as soon as it has been rendered.
+     * @param GraphRenderListener listener
+     */
+    public synchronized void addListener(GraphRenderListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * setMessageListener sets where render failures are reported instead of System.out.
+     * @param MessageListener listener
+     */
+    public synchronized void setMessageListener(MessageListener listener) {
+        messageListener = listener;
+    }
+
+    /**
+     * submit schedules dotText to be rendered to <prefix>.png and <prefix>.json, replacing any
+     * request for the same graph that has not started yet.
+     * @param String prefix
+     * @param String dotText
+     */
+    public void submit(String prefix, String dotText) {
+        submit(prefix, () -> GraphPrinter.render(prefix, dotText));
+    }
+
+    /**
+     * submit schedules task to render the graph named prefix, replacing any task for the same
+     * graph that has not started yet.
+     * @param String prefix
+     * @param RenderTask task
+     */
+    public synchronized void submit(String prefix, RenderTask task) {
+        pending.put(prefix, task);
+        requestCount++;
+        startWorker();
+        notifyAll();
+    }
+
+    /**
+     * runWhenRendered runs callback on the render thread once every graph submitted so far has
+     * been rendered, e.g. to open the views once the latest graphs are available.
+     * @param Runnable callback
+     */
+    public synchronized void runWhenRendered(Runnable callback) {
+        callbacks.add(callback);
+        startWorker();
+        notifyAll();
+    }
+
+    /**
+     * awaitIdle blocks until all submitted graphs have been rendered and all callbacks have run.
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (busy || !pending.isEmpty() || !callbacks.isEmpty()) {
+            wait();
+        }
+    }
+
+    /**
+     * getRequestCount returns the number of graphs submitted.
+     * @return long
+     */
+    public synchronized long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * getRenderCount returns the number of graphs actually rendered, which is lower than the
+     * request count when requests were coalesced.
+     * @return long
+     */
+    public synchronized long getRenderCount() {
+        return renderCount;
+    }
+
+    private void startWorker() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::runWorker, "aldb-graph-render");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void runWorker() {
+        while (true) {
+            Map<String, RenderTask> graphs;
+            List<Runnable> readyCallbacks = new ArrayList<>();
+            List<GraphRenderListener> currentListeners;
+            MessageListener messages;
+            synchronized (this) {
+                while (pending.isEmpty() && callbacks.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                busy = true;
+                graphs = new LinkedHashMap<>(pending);
+                pending.clear();
+                if (graphs.isEmpty()) {
+                    readyCallbacks.addAll(callbacks);
+                    callbacks.clear();
+                }
+                currentListeners = new ArrayList<>(listeners);
+                messages = messageListener;
+            }
+
+            for (Map.Entry<String, RenderTask> graph : graphs.entrySet()) {
+                RenderedGraph rendered;
+                PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.RENDER);
+                try {
+                    rendered = graph.getValue().render();
+                } catch (Exception e) {
+                    messages.message(String.format("error. Could not render %s: %s", graph.getKey(), e.getMessage()));
+                    continue;
+                } finally {
+                    timer.stop();
+                }
+                for (GraphRenderListener listener : currentListeners) {
+                    try {
+                        listener.graphRendered(rendered);
+                    } catch (RuntimeException e) {
+                        messages.message(String.format("error. Could not show %s: %s", graph.getKey(), e));
+                    }
+                }
+            }
+
+            for (Runnable callback : readyCallbacks) {
+                try {
+                    callback.run();
+                } catch (RuntimeException e) {
+                    messages.message(String.format("error. Could not show the rendered graphs: %s", e));
+                }
+            }
+
+            synchronized (this) {
+                renderCount += graphs.size();
+                busy = false;
+                notifyAll();
+            }
+        }
+    }
+}
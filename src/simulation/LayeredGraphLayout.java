@@ -0,0 +1,542 @@
+package simulation;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LayeredGraphLayout lays out a directed graph in layers (Sugiyama style) without Graphviz, and
+ * produces the same objects/edges/_draw_ structure as `dot -Tjson`, which JsonDrawing reads.
+ *
+ * Nodes are ranked by their first incoming edge as they are added, and ranks keep their nodes
+ * ordered by the barycenter of their predecessors in the rank above. Appending nodes only reorders
+ * the ranks they were added to and the ranks below whose order changes as a result, so existing
+ * parts of the drawing stay where they are.
+ */
+public class LayeredGraphLayout {
+    // Sizes are in points, matching the Graphviz defaults for ellipse nodes.
+    private static final double NODE_RX = 27;
+    private static final double NODE_RY = 18;
+    private static final double NODE_SEPARATION = 81; // between centres of nodes of a rank
+    private static final double RANK_SEPARATION = 72; // between centres of consecutive ranks
+    private static final double MARGIN = 4;
+    private static final double BEND_OFFSET = 24; // extra room beside nodes for bent edges and loops
+    private static final double ARROW_LENGTH = 10;
+    private static final double ARROW_HALF_WIDTH = 3.5;
+    private static final String FONT_FACE = "Times-Roman";
+    private static final int FONT_SIZE = 14;
+    private static final String BLACK = "#000000";
+
+    private static class Node {
+        final String name;
+        final int gvid;
+        String color;
+        int rank = -1;
+        int order;
+        final List<Node> predecessors = new ArrayList<>(); // in the rank directly above
+
+        Node(String name, int gvid) {
+            this.name = name;
+            this.gvid = gvid;
+        }
+    }
+
+    private static class Edge {
+        final Node tail;
+        final Node head;
+        final String label;
+
+        Edge(Node tail, Node head, String label) {
+            this.tail = tail;
+            this.head = head;
+            this.label = label;
+        }
+    }
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Node> nodesByName = new HashMap<>();
+    private final List<Edge> edges = new ArrayList<>();
+    private final List<List<Node>> ranks = new ArrayList<>();
+    private final BitSet dirtyRanks = new BitSet(); // ranks whose order must be recomputed
+    private long reorderedRankCount;
+
+    public synchronized void clear() {
+        nodes.clear();
+        nodesByName.clear();
+        edges.clear();
+        ranks.clear();
+        dirtyRanks.clear();
+        reorderedRankCount = 0;
+    }
+
+    /**
+     * addNode adds a node, or updates its colour if it already exists.
+     * @param String name
+     * @param String color, a colour name or #rrggbb, or null for the default
+     */
+    public synchronized void addNode(String name, String color) {
+        getOrAddNode(name).color = color;
+    }
+
+    /**
+     * addNode adds a node together with its first incoming edge, so that a layout computed in
+     * between cannot rank the node at the top before its edge is known.
+     * @param String name
+     * @param String color, a colour name or #rrggbb, or null for the default
+     * @param String tailName, the node the edge comes from
+     * @param String label, may be null or empty
+     */
+    public synchronized void addNode(String name, String color, String tailName, String label) {
+        getOrAddNode(name).color = color;
+        addEdge(tailName, name, label);
+    }
+
+    /**
+     * addEdge adds an edge, adding its nodes if needed. A node that is not ranked yet is placed
+     * in the rank below the tail of its first incoming edge.
+     * @param String tailName
+     * @param String headName
+     * @param String label, may be null or empty
+     */
+    public synchronized void addEdge(String tailName, String headName, String label) {
+        Node tail = getOrAddNode(tailName);
+        Node head = getOrAddNode(headName);
+        edges.add(new Edge(tail, head, label));
+
+        if (tail.rank < 0) {
+            place(tail, 0);
+        }
+        if (head.rank < 0) {
+            place(head, tail.rank + 1);
+        }
+        if (head.rank == tail.rank + 1) {
+            head.predecessors.add(tail);
+            dirtyRanks.set(head.rank);
+        }
+    }
+
+    public synchronized int getRank(String name) {
+        Node node = nodesByName.get(name);
+        if (node == null) {
+            return -1;
+        }
+        layout();
+        return node.rank;
+    }
+
+    public synchronized int getOrder(String name) {
+        Node node = nodesByName.get(name);
+        if (node == null) {
+            return -1;
+        }
+        layout();
+        return node.order;
+    }
+
+    /**
+     * getReorderedRankCount returns how many times a rank has been reordered, which shows how much
+     * of the graph incremental relayout has touched.
+     * @return long
+     */
+    public synchronized long getReorderedRankCount() {
+        return reorderedRankCount;
+    }
+
+    /**
+     * toJson returns the layout in the format produced by `dot -Tjson`.
+     * @param String highlighted, name of the node to fill, or null
+     * @return JSONObject
+     */
+    public synchronized JSONObject toJson(String highlighted) {
+        layout();
+        double width = getWidth();
+        double height = getHeight();
+
+        JSONObject graph = new JSONObject();
+        graph.put("name", "G");
+        graph.put("directed", true);
+        graph.put("strict", false);
+        graph.put("bb", String.format("0,0,%.2f,%.2f", width, height));
+        graph.put("_draw_", new JSONArray()
+            .put(colorOp("c", "#fffffe00"))
+            .put(colorOp("C", "#ffffff"))
+            .put(pointsOp("P", new double[][] {{0, 0}, {0, height}, {width, height}, {width, 0}})));
+
+        JSONArray objects = new JSONArray();
+        for (Node node : nodes) {
+            double x = getX(node);
+            double y = height - getY(node);
+            JSONObject object = new JSONObject();
+            object.put("_gvid", node.gvid);
+            object.put("name", node.name);
+            object.put("label", "\\N");
+            object.put("pos", String.format("%.2f,%.2f", x, y));
+            if (node.color != null) {
+                object.put("color", node.color);
+            }
+            if (node.name.equals(highlighted)) {
+                object.put("style", "filled");
+                object.put("fillcolor", "yellow");
+            }
+            object.put("_draw_", new JSONArray()
+                .put(colorOp("c", toHex(node.color)))
+                .put(new JSONObject().put("op", "e").put("rect", new JSONArray().put(x).put(y).put(NODE_RX).put(NODE_RY))));
+            object.put("_ldraw_", textOps(x, y - FONT_SIZE * 0.3, node.name));
+            objects.put(object);
+        }
+        graph.put("objects", objects);
+
+        JSONArray edgeObjects = new JSONArray();
+        for (int i = 0; i < edges.size(); i++) {
+            Edge edge = edges.get(i);
+            double[][] route = route(edge);
+            double[][] arrow = arrowHead(route);
+            JSONObject object = new JSONObject();
+            object.put("_gvid", i);
+            object.put("tail", edge.tail.gvid);
+            object.put("head", edge.head.gvid);
+            object.put("_draw_", new JSONArray()
+                .put(colorOp("c", BLACK))
+                .put(pointsOp("b", flip(route, height))));
+            object.put("_hdraw_", new JSONArray()
+                .put(new JSONObject().put("op", "S").put("style", "solid"))
+                .put(colorOp("c", BLACK))
+                .put(colorOp("C", BLACK))
+                .put(pointsOp("P", flip(arrow, height))));
+            if (edge.label != null && !edge.label.isEmpty()) {
+                double[] at = labelPosition(route, edge.label);
+                object.put("label", edge.label);
+                object.put("_ldraw_", textOps(at[0], height - at[1], edge.label));
+            }
+            edgeObjects.put(object);
+        }
+        graph.put("edges", edgeObjects);
+        return graph;
+    }
+
+    /**
+     * toImage draws the layout, as `dot -Tpng` would.
+     * @param String highlighted, name of the node to fill, or null
+     * @return BufferedImage
+     */
+    public synchronized BufferedImage toImage(String highlighted) {
+        layout();
+        BufferedImage image = new BufferedImage(
+            (int) Math.ceil(getWidth()), (int) Math.ceil(getHeight()), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setFont(new Font(Font.SERIF, Font.PLAIN, FONT_SIZE));
+        g.setStroke(new BasicStroke(1));
+
+        for (Edge edge : edges) {
+            double[][] route = route(edge);
+            double[][] arrow = arrowHead(route);
+            g.setColor(Color.BLACK);
+            Path2D path = new Path2D.Double();
+            path.moveTo(route[0][0], route[0][1]);
+            for (int i = 1; i < route.length; i++) {
+                path.lineTo(route[i][0], route[i][1]);
+            }
+            g.draw(path);
+            Polygon head = new Polygon();
+            for (double[] point : arrow) {
+                head.addPoint((int) Math.round(point[0]), (int) Math.round(point[1]));
+            }
+            g.fill(head);
+            if (edge.label != null && !edge.label.isEmpty()) {
+                double[] at = labelPosition(route, edge.label);
+                drawCentredText(g, edge.label, at[0], at[1]);
+            }
+        }
+
+        for (Node node : nodes) {
+            Ellipse2D ellipse = new Ellipse2D.Double(
+                getX(node) - NODE_RX, getY(node) - NODE_RY, 2 * NODE_RX, 2 * NODE_RY);
+            if (node.name.equals(highlighted)) {
+                g.setColor(Color.YELLOW);
+                g.fill(ellipse);
+            }
+            g.setColor(Color.decode(toHex(node.color)));
+            g.draw(ellipse);
+            g.setColor(Color.BLACK);
+            drawCentredText(g, node.name, getX(node), getY(node));
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * render lays out the graph and draws it, without writing any files.
+     * @param String name of the graph
+     * @param String highlighted, name of the node to fill, or null
+     * @return RenderedGraph
+     */
+    public synchronized RenderedGraph render(String name, String highlighted) {
+        return new RenderedGraph(name, toJson(highlighted), toImage(highlighted));
+    }
+
+    private Node getOrAddNode(String name) {
+        Node node = nodesByName.get(name);
+        if (node == null) {
+            node = new Node(name, nodes.size());
+            nodes.add(node);
+            nodesByName.put(name, node);
+        }
+        return node;
+    }
+
+    private void place(Node node, int rank) {
+        node.rank = rank;
+        while (ranks.size() <= rank) {
+            ranks.add(new ArrayList<>());
+        }
+        List<Node> rankNodes = ranks.get(rank);
+        node.order = rankNodes.size();
+        rankNodes.add(node);
+        dirtyRanks.set(rank);
+    }
+
+    /**
+     * layout ranks nodes that have no incoming edge yet at the top, and then reorders every rank
+     * that has changed, top down. A rank whose order is unchanged does not affect the ranks below.
+     */
+    private void layout() {
+        for (Node node : nodes) {
+            if (node.rank < 0) {
+                place(node, 0);
+            }
+        }
+
+        int rank = dirtyRanks.nextSetBit(0);
+        while (rank >= 0 && rank < ranks.size()) {
+            boolean changed = reorder(ranks.get(rank), rank);
+            reorderedRankCount++;
+            rank = changed ? rank + 1 : dirtyRanks.nextSetBit(rank + 1);
+        }
+        dirtyRanks.clear();
+    }
+
+    /**
+     * reorder sorts the nodes of a rank by the mean order of their predecessors in the rank above.
+     * Ties keep the order in which the nodes were added.
+     * @return boolean, true if any node of the rank moved
+     */
+    private boolean reorder(List<Node> rankNodes, int rank) {
+        if (rank == 0) {
+            return false;
+        }
+
+        Map<Node, Double> barycenters = new HashMap<>();
+        for (Node node : rankNodes) {
+            double sum = 0;
+            for (Node predecessor : node.predecessors) {
+                sum += predecessor.order;
+            }
+            barycenters.put(node, node.predecessors.isEmpty() ? node.order : sum / node.predecessors.size());
+        }
+        rankNodes.sort((a, b) -> {
+            int byBarycenter = Double.compare(barycenters.get(a), barycenters.get(b));
+            return byBarycenter != 0 ? byBarycenter : Integer.compare(a.gvid, b.gvid);
+        });
+
+        boolean changed = false;
+        for (int i = 0; i < rankNodes.size(); i++) {
+            Node node = rankNodes.get(i);
+            if (node.order != i) {
+                node.order = i;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private double getWidth() {
+        int widestRank = 0;
+        for (List<Node> rankNodes : ranks) {
+            widestRank = Math.max(widestRank, rankNodes.size());
+        }
+        if (widestRank == 0) {
+            return 2 * MARGIN;
+        }
+        // Leave room on the right for self loops and bent edges.
+        return 2 * MARGIN + 3 * NODE_RX + BEND_OFFSET + (widestRank - 1) * NODE_SEPARATION;
+    }
+
+    private double getHeight() {
+        if (ranks.isEmpty()) {
+            return 2 * MARGIN;
+        }
+        return 2 * MARGIN + 2 * NODE_RY + BEND_OFFSET + (ranks.size() - 1) * RANK_SEPARATION;
+    }
+
+    // Coordinates are computed with y growing downwards and flipped for the JSON output.
+    private double getX(Node node) {
+        return MARGIN + NODE_RX + node.order * NODE_SEPARATION;
+    }
+
+    private double getY(Node node) {
+        return MARGIN + NODE_RY + node.rank * RANK_SEPARATION;
+    }
+
+    /**
+     * route returns the points of an edge, from the boundary of its tail to the tip of its head.
+     * Edges to the next rank are straight, self loops go around the right of the node, and other
+     * edges bend sideways so that they do not run over the edges between consecutive ranks.
+     * @return double[][]
+     */
+    private double[][] route(Edge edge) {
+        double tx = getX(edge.tail);
+        double ty = getY(edge.tail);
+        double hx = getX(edge.head);
+        double hy = getY(edge.head);
+
+        if (edge.tail == edge.head) {
+            return new double[][] {
+                {tx + NODE_RX * 0.7, ty - NODE_RY * 0.7},
+                {tx + NODE_RX + BEND_OFFSET, ty - NODE_RY},
+                {tx + NODE_RX + BEND_OFFSET, ty + NODE_RY},
+                {tx + NODE_RX * 0.7, ty + NODE_RY * 0.7}
+            };
+        }
+
+        if (edge.head.rank == edge.tail.rank + 1) {
+            return new double[][] {boundary(tx, ty, hx, hy), boundary(hx, hy, tx, ty)};
+        }
+
+        double dx = hx - tx;
+        double dy = hy - ty;
+        double length = Math.hypot(dx, dy);
+        // Bend to the right, or downwards for edges within a rank, far enough to pass beside the
+        // nodes in between. Edges going back up bend further, so they do not overlap edges going
+        // down between the same nodes.
+        double px = -dy / length;
+        double py = dx / length;
+        if (px < 0 || (px == 0 && py < 0)) {
+            px = -px;
+            py = -py;
+        }
+        double offset = NODE_RX + (edge.head.rank < edge.tail.rank ? 1.5 : 0.5) * BEND_OFFSET;
+        double[] bend = {(tx + hx) / 2 + px * offset, (ty + hy) / 2 + py * offset};
+        return new double[][] {boundary(tx, ty, bend[0], bend[1]), bend, boundary(hx, hy, bend[0], bend[1])};
+    }
+
+    // Point where the line from the centre (cx, cy) towards (px, py) leaves the node's ellipse.
+    private static double[] boundary(double cx, double cy, double px, double py) {
+        double dx = px - cx;
+        double dy = py - cy;
+        double scale = Math.sqrt((dx / NODE_RX) * (dx / NODE_RX) + (dy / NODE_RY) * (dy / NODE_RY));
+        if (scale == 0) {
+            return new double[] {cx, cy};
+        }
+        return new double[] {cx + dx / scale, cy + dy / scale};
+    }
+
+    /**
+     * arrowHead shortens the last segment of route so that it ends at the base of the arrow head,
+     * and returns the arrow head triangle.
+     * @return double[][]
+     */
+    private static double[][] arrowHead(double[][] route) {
+        double[] tip = route[route.length - 1].clone();
+        double[] from = route[route.length - 2];
+        double dx = tip[0] - from[0];
+        double dy = tip[1] - from[1];
+        double length = Math.max(Math.hypot(dx, dy), 1e-9);
+        double ux = dx / length;
+        double uy = dy / length;
+        double[] base = {tip[0] - ux * ARROW_LENGTH, tip[1] - uy * ARROW_LENGTH};
+        route[route.length - 1] = base;
+        return new double[][] {
+            {base[0] - uy * ARROW_HALF_WIDTH, base[1] + ux * ARROW_HALF_WIDTH},
+            {base[0] + uy * ARROW_HALF_WIDTH, base[1] - ux * ARROW_HALF_WIDTH},
+            tip
+        };
+    }
+
+    private static double[] labelPosition(double[][] route, String label) {
+        double[] a = route[(route.length - 1) / 2];
+        double[] b = route[route.length / 2];
+        double[] middle = a == b ? a : new double[] {(a[0] + b[0]) / 2, (a[1] + b[1]) / 2};
+        return new double[] {middle[0] + textWidth(label) / 2 + 6, middle[1]};
+    }
+
+    private static double textWidth(String text) {
+        // Graphviz estimates Times-Roman text at about half the font size per character.
+        return text.length() * FONT_SIZE * 0.5;
+    }
+
+    private static void drawCentredText(Graphics2D g, String text, double x, double y) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, (float) (x - metrics.stringWidth(text) / 2.0),
+            (float) (y + (metrics.getAscent() - metrics.getDescent()) / 2.0));
+    }
+
+    private static double[][] flip(double[][] points, double height) {
+        double[][] flipped = new double[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            flipped[i] = new double[] {points[i][0], height - points[i][1]};
+        }
+        return flipped;
+    }
+
+    private static JSONObject colorOp(String op, String color) {
+        return new JSONObject().put("op", op).put("grad", "none").put("color", color);
+    }
+
+    private static JSONObject pointsOp(String op, double[][] points) {
+        JSONArray array = new JSONArray();
+        for (double[] point : points) {
+            array.put(new JSONArray().put(point[0]).put(point[1]));
+        }
+        return new JSONObject().put("op", op).put("points", array);
+    }
+
+    private static JSONArray textOps(double x, double y, String text) {
+        return new JSONArray()
+            .put(new JSONObject().put("op", "F").put("size", FONT_SIZE).put("face", FONT_FACE))
+            .put(colorOp("c", BLACK))
+            .put(new JSONObject()
+                .put("op", "T")
+                .put("pt", new JSONArray().put(x).put(y))
+                .put("align", "c")
+                .put("width", textWidth(text))
+                .put("text", text));
+    }
+
+    private static String toHex(String color) {
+        if (color == null) {
+            return BLACK;
+        }
+        if (color.startsWith("#")) {
+            return color;
+        }
+        switch (color) {
+            case "green":
+                return "#00ff00";
+            case "red":
+                return "#ff0000";
+            case "yellow":
+                return "#ffff00";
+            default:
+                return BLACK;
+        }
+    }
+}
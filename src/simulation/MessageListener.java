@@ -0,0 +1,13 @@
+package simulation;
+
+/**
+ * MessageListener receives the error and status messages of a SimulationManager, which are printed
+ * to System.out unless another listener is set.
+ */
+public interface MessageListener {
+    /**
+     * message is called with every message, without a trailing newline.
+     * @param String message
+     */
+    void message(String message);
+}
@@ -0,0 +1,39 @@
+package simulation;
+
+/**
+ * RenderPolicy is when a SimulationManager renders its graphs and shows them in the views.
+ */
+public enum RenderPolicy {
+    INTERACTIVE("interactive", true, true), // render after every command and show the views
+    HEADLESS("headless", false, false); // render nothing; graphs are only exported on request, e.g. by dot
+
+    private final String name;
+    private final boolean rendersGraphs;
+    private final boolean showsViews;
+
+    RenderPolicy(String name, boolean rendersGraphs, boolean showsViews) {
+        this.name = name;
+        this.rendersGraphs = rendersGraphs;
+        this.showsViews = showsViews;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * rendersGraphs returns whether graphs are rendered as soon as a command changes them.
+     * @return boolean
+     */
+    public boolean rendersGraphs() {
+        return rendersGraphs;
+    }
+
+    /**
+     * showsViews returns whether rendered graphs are shown in the Swing views.
+     * @return boolean
+     */
+    public boolean showsViews() {
+        return showsViews;
+    }
+}
@@ -0,0 +1,37 @@
+package simulation;
+
+import org.json.JSONObject;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * RenderedGraph holds the output of one render of a graph: its layout in the `dot -Tjson` format
+ * read by JsonDrawing, and its image.
+ */
+public class RenderedGraph {
+    private final String name;
+    private final JSONObject layout;
+    private final BufferedImage image;
+
+    public RenderedGraph(String name, JSONObject layout, BufferedImage image) {
+        this.name = name;
+        this.layout = layout;
+        this.image = image;
+    }
+
+    /**
+     * getName returns the name of the graph, e.g. state_tree or control_states.
+     * @return String
+     */
+    public String getName() {
+        return name;
+    }
+
+    public JSONObject getLayout() {
+        return layout;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+}
@@ -0,0 +1,22 @@
+package simulation;
+
+import state.StateNode;
+
+/**
+ * SessionListener is notified of the events of an AldbSession, in place of the text that the
+ * commands print.
+ */
+public interface SessionListener {
+    /**
+     * stateChanged is called each time an operation of the session moves to another state.
+     * @param StateNode previous, the state before the operation, or null after a model is loaded
+     * @param StateNode current
+     */
+    void stateChanged(StateNode previous, StateNode current);
+
+    /**
+     * message is called with every error or status message of the session.
+     * @param String message
+     */
+    void message(String message);
+}
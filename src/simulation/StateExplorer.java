@@ -0,0 +1,176 @@
+package simulation;
+
+import edu.mit.csail.sdg.alloy4.Err;
+import state.StateCanonicalizer;
+import state.StateNode;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * StateExplorer explores the states reachable from a state breadth-first, solving for the successors
+ * of the states in each level of the search in parallel.
+ *
+ * Every worker thread solves with its own Solver, created by the SolverFactory the first time the
+ * thread needs it, so that no solver state is shared between threads. States found by several
+ * workers are deduplicated by content as they are found, or by their canonical form if a
+ * StateCanonicalizer is set.
+ */
+public class StateExplorer {
+    /**
+     * Solver finds the distinct successors of a state.
+     */
+    public interface Solver {
+        List<StateNode> getSuccessors(StateNode node) throws Err;
+    }
+
+    /**
+     * SolverFactory creates a Solver for one worker thread.
+     */
+    public interface SolverFactory {
+        Solver create() throws Err;
+    }
+
+    /**
+     * ProgressListener is notified every time a level of the search has been explored.
+     */
+    public interface ProgressListener {
+        /**
+         * levelExplored is called after the states `depth` transitions away from the start state
+         * have been found.
+         * @param int depth
+         * @param int states, the number of distinct states found so far
+         * @param int frontier, the number of new states at depth, to be explored next
+         * @param double statesPerSecond, the number of states explored per second so far
+         */
+        void levelExplored(int depth, int states, int frontier, double statesPerSecond);
+    }
+
+    private final SolverFactory solverFactory;
+    private final int threads;
+    private StateCanonicalizer canonicalizer;
+
+    public StateExplorer(SolverFactory solverFactory, int threads) {
+        this.solverFactory = solverFactory;
+        this.threads = threads;
+    }
+
+    /**
+     * setCanonicalizer deduplicates states by their canonical form, so that only one of the states
+     * that differ by a permutation of interchangeable atoms is explored.
+     * @param StateCanonicalizer canonicalizer, or null to deduplicate by exact content
+     */
+    public void setCanonicalizer(StateCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    /**
+     * explore finds the states up to `depth` transitions away from start, stopping early once
+     * maxStates distinct states have been found.
+     *
+     * The result maps every state that was explored to its successors, in the order they were
+     * explored. Equal states found from different states are represented by the same StateNode, the
+     * first one found.
+     * @param StateNode start
+     * @param int depth
+     * @param int maxStates
+     * @param ProgressListener listener, may be null
+     * @return Map<StateNode, List<StateNode>>
+     * @throws Err if the successors of a state could not be solved.
+     */
+    public Map<StateNode, List<StateNode>> explore(StateNode start, int depth, int maxStates, ProgressListener listener)
+            throws Err {
+        Map<StateNode, StateNode> discovered = new ConcurrentHashMap<>(); // key -> state, shared by the workers
+        Set<StateNode> queued = new HashSet<>(); // states explored or in the frontier
+        Map<StateNode, List<StateNode>> edges = new LinkedHashMap<>();
+        discovered.put(getKey(start), start);
+        queued.add(start);
+        List<StateNode> frontier = new ArrayList<>();
+        frontier.add(start);
+        int explored = 0;
+        long startTime = System.nanoTime();
+
+        ThreadLocal<Solver> solvers = new ThreadLocal<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "aldb-explore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int level = 1; level <= depth && !frontier.isEmpty() && queued.size() < maxStates; level++) {
+                List<Future<List<StateNode>>> results = new ArrayList<>();
+                for (StateNode node : frontier) {
+                    results.add(executor.submit(() -> {
+                        Solver solver = solvers.get();
+                        if (solver == null) {
+                            solver = solverFactory.create();
+                            solvers.set(solver);
+                        }
+                        List<StateNode> successors = new ArrayList<>();
+                        for (StateNode successor : solver.getSuccessors(node)) {
+                            StateNode existing = discovered.putIfAbsent(getKey(successor), successor);
+                            successors.add(existing == null ? successor : existing);
+                        }
+                        return successors;
+                    }));
+                }
+
+                // The next frontier is built in the order of the current one, so that the result
+                // does not depend on the order in which the workers finish.
+                List<StateNode> nextFrontier = new ArrayList<>();
+                for (int i = 0; i < frontier.size(); i++) {
+                    List<StateNode> successors = new ArrayList<>();
+                    for (StateNode successor : await(results.get(i))) {
+                        if (!queued.contains(successor)) {
+                            if (queued.size() >= maxStates) {
+                                // States beyond maxStates are left out of the result entirely.
+                                continue;
+                            }
+                            queued.add(successor);
+                            nextFrontier.add(successor);
+                        }
+                        successors.add(successor);
+                    }
+                    edges.put(frontier.get(i), successors);
+                    explored++;
+                }
+                frontier = nextFrontier;
+
+                if (listener != null) {
+                    double seconds = (System.nanoTime() - startTime) / 1e9;
+                    listener.levelExplored(level, queued.size(), frontier.size(), seconds > 0 ? explored / seconds : 0);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return edges;
+    }
+
+    private StateNode getKey(StateNode node) {
+        return canonicalizer == null ? node : canonicalizer.canonicalize(node);
+    }
+
+    private static List<StateNode> await(Future<List<StateNode>> result) throws Err {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Err) {
+                throw (Err) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package simulation;
+
+import state.StateGraphListener;
+import state.StateNode;
+
+/**
+ * StateTreeLayout keeps a LayeredGraphLayout of the state tree up to date as the StateGraph grows.
+ * Nodes and edges are named and labelled as in the Graphviz state tree.
+ */
+public class StateTreeLayout implements StateGraphListener {
+    private final LayeredGraphLayout layout = new LayeredGraphLayout();
+
+    public void graphCleared() {
+        layout.clear();
+    }
+
+    public void nodeAdded(StateNode node, StateNode from) {
+        String color = null;
+        if (node.hasStable()) {
+            color = node.getStable() ? "green" : "red";
+        }
+        if (from == null) {
+            layout.addNode(getNodeName(node), color);
+        } else {
+            layout.addNode(getNodeName(node), color, getNodeName(from), node.getTransitionName());
+        }
+    }
+
+    public void stepAdded(StateNode from, StateNode to) {
+        layout.addEdge(getNodeName(from), getNodeName(to), to.getTransitionName());
+    }
+
+    public LayeredGraphLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * render lays out and draws the state tree, highlighting curNode.
+     * @param String name of the graph
+     * @param StateNode curNode, may be null
+     * @return RenderedGraph
+     */
+    public RenderedGraph render(String name, StateNode curNode) {
+        return layout.render(name, curNode == null ? null : getNodeName(curNode));
+    }
+
+    private static String getNodeName(StateNode node) {
+        return "S" + node.getIdentifier();
+    }
+}
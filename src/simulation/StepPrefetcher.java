@@ -0,0 +1,192 @@
+package simulation;
+
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.translator.A4Solution;
+import state.StateNode;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * StepPrefetcher solves the likely next commands, a single step and the next alternative path,
+ * on a background thread while the user is at the prompt, so that they can return immediately.
+ *
+ * Prefetches run one at a time on a single worker thread. The solver is only used by one thread
+ * at a time: before the simulation solves anything itself, it either takes a matching prefetch
+ * or cancels the prefetches and waits for the worker to finish.
+ */
+public class StepPrefetcher {
+    /**
+     * Solve solves a model.
+     */
+    public interface Solve {
+        A4Solution solve() throws Err;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aldb-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean enabled;
+    private StateNode stepNode; // node the prefetched step starts from
+    private Future<A4Solution> stepFuture;
+    private A4Solution altSolution; // solution whose next solution is prefetched
+    private Future<A4Solution> altFuture;
+    private long stepRequests;
+    private long stepHits;
+    private long altRequests;
+    private long altHits;
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * setEnabled turns prefetching on or off. Turning it off cancels any pending prefetches.
+     * @param boolean enabled
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            cancel();
+        }
+    }
+
+    /**
+     * prefetch replaces any pending prefetches with a step from node, solved by step, and the next
+     * solution after active, if there is an active solution.
+     * @param StateNode node
+     * @param Solve step
+     * @param A4Solution active
+     */
+    public synchronized void prefetch(StateNode node, Solve step, A4Solution active) {
+        if (!enabled) {
+            return;
+        }
+        // Prefetches that are still needed are kept rather than solved again.
+        if (altFuture == null || altSolution != active) {
+            cancelFuture(altFuture, false);
+            altSolution = active;
+            altFuture = active == null ? null : executor.submit(() -> active.next());
+        }
+        if (stepFuture == null || !node.equals(stepNode)) {
+            cancelFuture(stepFuture, true);
+            stepNode = node;
+            stepFuture = node == null ? null : executor.submit(step::solve);
+        }
+    }
+
+    /**
+     * takeStep returns the prefetched solution for a single step from node, waiting for it if it
+     * is still being solved. If no step from node was prefetched, the prefetches are cancelled
+     * instead so that the caller can solve the step itself.
+     * @param StateNode node
+     * @return A4Solution, or null if no step from node was prefetched.
+     */
+    public synchronized A4Solution takeStep(StateNode node) {
+        if (!enabled) {
+            return null;
+        }
+        stepRequests++;
+        Future<A4Solution> future = (stepFuture != null && node != null && node.equals(stepNode)) ? stepFuture : null;
+        stepFuture = null;
+        cancel();
+        A4Solution sol = await(future);
+        if (sol != null) {
+            stepHits++;
+        }
+        return sol;
+    }
+
+    /**
+     * takeAlternative waits for the next solution after active if it is being prefetched, so that
+     * active.next() returns it without solving. Otherwise the prefetches are cancelled so that the
+     * caller can solve for it itself.
+     * @param A4Solution active
+     */
+    public synchronized void takeAlternative(A4Solution active) {
+        if (!enabled) {
+            return;
+        }
+        altRequests++;
+        Future<A4Solution> future = (altFuture != null && altSolution == active) ? altFuture : null;
+        altFuture = null;
+        cancel();
+        if (await(future) != null) {
+            altHits++;
+        }
+    }
+
+    /**
+     * cancel cancels the pending prefetches and waits for the worker thread to become idle, after
+     * which the caller may use the solver.
+     */
+    public synchronized void cancel() {
+        // A running step is interrupted, which cancels its solve. The next solution of an active
+        // solution is computed inside Alloy and cannot be cancelled, so it is waited for.
+        cancelFuture(stepFuture, true);
+        cancelFuture(altFuture, false);
+        stepFuture = null;
+        stepNode = null;
+        altFuture = null;
+        altSolution = null;
+        await(executor.submit(() -> null));
+    }
+
+    /**
+     * getStats returns how many steps and alternative paths were served by prefetches.
+     * @return String
+     */
+    public synchronized String getStats() {
+        return String.format(
+            "step: %d of %d prefetched (%s), alt: %d of %d prefetched (%s)",
+            stepHits, stepRequests, getRate(stepHits, stepRequests),
+            altHits, altRequests, getRate(altHits, altRequests)
+        );
+    }
+
+    public synchronized long getStepHits() {
+        return stepHits;
+    }
+
+    public synchronized long getStepRequests() {
+        return stepRequests;
+    }
+
+    public synchronized long getAltHits() {
+        return altHits;
+    }
+
+    public synchronized long getAltRequests() {
+        return altRequests;
+    }
+
+    private static String getRate(long hits, long requests) {
+        return requests == 0 ? "-" : String.format("%d%%", hits * 100 / requests);
+    }
+
+    private static void cancelFuture(Future<A4Solution> future, boolean interrupt) {
+        if (future != null) {
+            future.cancel(interrupt);
+        }
+    }
+
+    // Returns the result of future, or null if there is none or it failed.
+    private static A4Solution await(Future<A4Solution> future) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (CancellationException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package state;
+
+import alloy.AlloyConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StateCanonicalizer maps a state to a canonical representative of the states that differ from it
+ * only by a permutation of interchangeable atoms.
+ *
+ * The atoms of the concrete sigs that ALDB injects for scoped sigs (see
+ * AlloyUtils.getConcreteSigsDefinition) are interchangeable, as the model cannot refer to them by
+ * name: in musical chairs, a state where Player_0 sits on Chair_1 is equivalent to the state where
+ * Player_1 sits on Chair_1 and Player_0 is wherever Player_1 was. Two states have the same canonical
+ * form exactly when some permutation of these atoms maps one onto the other, so canonical forms can
+ * be used to deduplicate states up to symmetry.
+ */
+public class StateCanonicalizer {
+    // Upper bound on the relabellings tried for one state. Beyond it, only the relabelling given by
+    // the atom invariants is used: states are still only merged when they are symmetric, but some
+    // symmetric states may not be merged.
+    private static final int MAX_RELABELLINGS = 5040;
+    private static final String MASK_SUFFIX = "*";
+    private static final String SELF_MASK = "#";
+
+    private final Map<String, List<String>> atomsBySig; // sig -> its concrete atoms, in order
+    private final Map<String, String> sigsByAtom; // concrete atom -> its sig
+
+    /**
+     * @param Map<String, Integer> sigScopes, the scopes of the sigs that have concrete atoms sig_0 to
+     * sig_(n-1). Bitwidth scoped sigs are ignored, as their atoms are not interchangeable.
+     */
+    public StateCanonicalizer(Map<String, Integer> sigScopes) {
+        atomsBySig = new LinkedHashMap<>();
+        sigsByAtom = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : sigScopes.entrySet()) {
+            String sig = entry.getKey();
+            // A sig with a single atom has nothing to permute.
+            if (entry.getValue() < 2 || AlloyConstants.BITWIDTH_SCOPED_SIGS.contains(sig)) {
+                continue;
+            }
+            List<String> atoms = new ArrayList<>();
+            for (int i = 0; i < entry.getValue(); i++) {
+                String atom = sig + AlloyConstants.UNDERSCORE + i;
+                atoms.add(atom);
+                sigsByAtom.put(atom, sig);
+            }
+            atomsBySig.put(sig, atoms);
+        }
+    }
+
+    /**
+     * isEmpty returns true if there are no interchangeable atoms, in which case every state is its
+     * own canonical form.
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return atomsBySig.isEmpty();
+    }
+
+    /**
+     * canonicalize returns the canonical form of node. This is node itself if it contains no
+     * interchangeable atoms, and otherwise a new node of the same model that is not part of any graph.
+     * @param StateNode node
+     * @return StateNode
+     */
+    public StateNode canonicalize(StateNode node) {
+        int fieldCount = node.getFieldCount();
+        List<List<String[]>> tuples = new ArrayList<>(fieldCount);
+        boolean symmetric = false;
+        for (int i = 0; i < fieldCount; i++) {
+            List<String[]> fieldTuples = new ArrayList<>();
+            for (String value : node.getFieldValues(i)) {
+                String[] atoms = value.split(AlloyConstants.SET_DELIMITER, -1);
+                for (String atom : atoms) {
+                    symmetric |= sigsByAtom.containsKey(atom);
+                }
+                fieldTuples.add(atoms);
+            }
+            tuples.add(fieldTuples);
+        }
+        if (!symmetric) {
+            return node;
+        }
+
+        // Atoms that are told apart by their invariants are ordered by them; only the order of atoms
+        // with equal invariants needs to be searched.
+        List<List<List<String>>> tieGroupsBySig = new ArrayList<>();
+        long relabellings = 1;
+        for (List<String> atoms : atomsBySig.values()) {
+            Map<String, String> invariants = new HashMap<>();
+            for (String atom : atoms) {
+                invariants.put(atom, getInvariant(atom, tuples));
+            }
+            List<String> sorted = new ArrayList<>(atoms);
+            sorted.sort((a, b) -> invariants.get(a).compareTo(invariants.get(b)));
+
+            List<List<String>> tieGroups = new ArrayList<>();
+            for (String atom : sorted) {
+                List<String> last = tieGroups.isEmpty() ? null : tieGroups.get(tieGroups.size() - 1);
+                if (last != null && invariants.get(last.get(0)).equals(invariants.get(atom))) {
+                    last.add(atom);
+                } else {
+                    List<String> group = new ArrayList<>();
+                    group.add(atom);
+                    tieGroups.add(group);
+                }
+            }
+            for (List<String> group : tieGroups) {
+                for (int n = 2; n <= group.size() && relabellings <= MAX_RELABELLINGS; n++) {
+                    relabellings *= n;
+                }
+            }
+            tieGroupsBySig.add(tieGroups);
+        }
+
+        List<List<String>> best = null;
+        String bestKey = null;
+        for (Map<String, String> relabelling : getRelabellings(tieGroupsBySig, relabellings <= MAX_RELABELLINGS)) {
+            List<List<String>> relabelled = relabel(tuples, relabelling);
+            String key = relabelled.toString();
+            if (bestKey == null || key.compareTo(bestKey) < 0) {
+                best = relabelled;
+                bestKey = key;
+            }
+        }
+        return node.withFieldValues(best);
+    }
+
+    /**
+     * getInvariant describes the occurrences of atom in the state without naming any interchangeable
+     * atom, so that atoms that are mapped onto each other by a symmetry have equal invariants.
+     */
+    private String getInvariant(String atom, List<List<String[]>> tuples) {
+        List<String> occurrences = new ArrayList<>();
+        for (int i = 0; i < tuples.size(); i++) {
+            for (String[] tuple : tuples.get(i)) {
+                boolean occurs = false;
+                StringBuilder sb = new StringBuilder().append(i).append(':');
+                for (int j = 0; j < tuple.length; j++) {
+                    if (j > 0) {
+                        sb.append(AlloyConstants.SET_DELIMITER);
+                    }
+                    if (tuple[j].equals(atom)) {
+                        occurs = true;
+                        sb.append(SELF_MASK);
+                    } else if (sigsByAtom.containsKey(tuple[j])) {
+                        sb.append(sigsByAtom.get(tuple[j])).append(MASK_SUFFIX);
+                    } else {
+                        sb.append(tuple[j]);
+                    }
+                }
+                if (occurs) {
+                    occurrences.add(sb.toString());
+                }
+            }
+        }
+        Collections.sort(occurrences);
+        return occurrences.toString();
+    }
+
+    /**
+     * getRelabellings returns the relabellings that map the atoms of every sig, in the order of its
+     * tie groups, onto sig_0, sig_1, ... Only the first is returned unless all is set.
+     */
+    private List<Map<String, String>> getRelabellings(List<List<List<String>>> tieGroupsBySig, boolean all) {
+        List<List<String>> groups = new ArrayList<>();
+        for (List<List<String>> tieGroups : tieGroupsBySig) {
+            groups.addAll(tieGroups);
+        }
+        List<List<List<String>>> orders = new ArrayList<>();
+        orders.add(new ArrayList<>());
+        for (List<String> group : groups) {
+            List<List<String>> groupOrders = all ? getPermutations(group) : Collections.singletonList(group);
+            List<List<List<String>>> extended = new ArrayList<>();
+            for (List<List<String>> order : orders) {
+                for (List<String> groupOrder : groupOrders) {
+                    List<List<String>> next = new ArrayList<>(order);
+                    next.add(groupOrder);
+                    extended.add(next);
+                }
+            }
+            orders = extended;
+        }
+
+        List<Map<String, String>> relabellings = new ArrayList<>();
+        for (List<List<String>> order : orders) {
+            Map<String, String> relabelling = new HashMap<>();
+            Map<String, Integer> nextIndex = new HashMap<>();
+            for (List<String> groupOrder : order) {
+                for (String atom : groupOrder) {
+                    String sig = sigsByAtom.get(atom);
+                    int index = nextIndex.getOrDefault(sig, 0);
+                    nextIndex.put(sig, index + 1);
+                    relabelling.put(atom, sig + AlloyConstants.UNDERSCORE + index);
+                }
+            }
+            relabellings.add(relabelling);
+        }
+        return relabellings;
+    }
+
+    private static List<List<String>> getPermutations(List<String> atoms) {
+        List<List<String>> permutations = new ArrayList<>();
+        if (atoms.size() <= 1) {
+            permutations.add(atoms);
+            return permutations;
+        }
+        for (int i = 0; i < atoms.size(); i++) {
+            List<String> rest = new ArrayList<>(atoms);
+            String first = rest.remove(i);
+            for (List<String> permutation : getPermutations(rest)) {
+                List<String> next = new ArrayList<>();
+                next.add(first);
+                next.addAll(permutation);
+                permutations.add(next);
+            }
+        }
+        return permutations;
+    }
+
+    private static List<List<String>> relabel(List<List<String[]>> tuples, Map<String, String> relabelling) {
+        List<List<String>> relabelled = new ArrayList<>(tuples.size());
+        for (List<String[]> fieldTuples : tuples) {
+            List<String> values = new ArrayList<>(fieldTuples.size());
+            for (String[] tuple : fieldTuples) {
+                String[] atoms = new String[tuple.length];
+                for (int j = 0; j < tuple.length; j++) {
+                    atoms[j] = relabelling.getOrDefault(tuple[j], tuple[j]);
+                }
+                values.add(String.join(AlloyConstants.SET_DELIMITER, atoms));
+            }
+            Collections.sort(values);
+            relabelled.add(values);
+        }
+        return relabelled;
+    }
+}
@@ -0,0 +1,73 @@
+package state;
+
+import alloy.SigData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StateDictionary interns the field names and tuple strings of a model's state sig so that every
+ * StateNode of the model can store its values as small integer identifiers instead of strings.
+ * One dictionary is shared by all the nodes created for a model.
+ */
+public class StateDictionary {
+    private final String[] fieldNames; // sorted, indexed by field index
+    private final Map<String, Integer> fieldIndices;
+    private final List<String> values; // indexed by value identifier
+    private final Map<String, Integer> valueIds;
+
+    public StateDictionary(SigData sigData) {
+        fieldNames = sigData.getFields().toArray(new String[0]);
+        Arrays.sort(fieldNames);
+        fieldIndices = new HashMap<>();
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldIndices.put(fieldNames[i], i);
+        }
+        values = new ArrayList<>();
+        valueIds = new HashMap<>();
+    }
+
+    public int getFieldCount() {
+        return fieldNames.length;
+    }
+
+    public String getFieldName(int fieldIndex) {
+        return fieldNames[fieldIndex];
+    }
+
+    /**
+     * getFieldIndex returns the position of field in the sorted list of fields.
+     * @param String field
+     * @return int, or -1 if the state sig has no such field
+     */
+    public int getFieldIndex(String field) {
+        Integer index = fieldIndices.get(field);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * intern returns the identifier of value, assigning a new one the first time value is seen.
+     * @param String value
+     * @return int
+     */
+    public synchronized int intern(String value) {
+        Integer id = valueIds.get(value);
+        if (id == null) {
+            id = values.size();
+            values.add(value);
+            valueIds.put(value, id);
+        }
+        return id;
+    }
+
+    public synchronized String getValue(int id) {
+        return values.get(id);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,132 @@
+package state;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * StateDiff is the difference between two states, field by field, for programs that need the changes
+ * themselves rather than the text of StateNode.getDiffString.
+ */
+public class StateDiff {
+    /**
+     * FieldChange is a field whose values differ between the two states.
+     */
+    public static class FieldChange {
+        private final String field;
+        private final List<String> before;
+        private final List<String> after;
+
+        private FieldChange(String field, List<String> before, List<String> after) {
+            this.field = field;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public List<String> getBefore() {
+            return before;
+        }
+
+        public List<String> getAfter() {
+            return after;
+        }
+
+        /**
+         * getAdded returns the values that the field only has in the second state.
+         * @return List<String>
+         */
+        public List<String> getAdded() {
+            Set<String> added = new LinkedHashSet<>(after);
+            added.removeAll(before);
+            return new ArrayList<>(added);
+        }
+
+        /**
+         * getRemoved returns the values that the field only has in the first state.
+         * @return List<String>
+         */
+        public List<String> getRemoved() {
+            Set<String> removed = new LinkedHashSet<>(before);
+            removed.removeAll(after);
+            return new ArrayList<>(removed);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s -> %s", field, before, after);
+        }
+    }
+
+    private final StateNode from;
+    private final StateNode to;
+    private final List<FieldChange> changes;
+
+    private StateDiff(StateNode from, StateNode to, List<FieldChange> changes) {
+        this.from = from;
+        this.to = to;
+        this.changes = changes;
+    }
+
+    /**
+     * between returns the fields of to whose values differ from those in from, in field order. If from
+     * is null, every field of to has changed. Fields that from does not have are left out, as in
+     * StateNode.getDiffString.
+     * @param StateNode from, may be null
+     * @param StateNode to
+     * @return StateDiff
+     */
+    public static StateDiff between(StateNode from, StateNode to) {
+        List<FieldChange> changes = new ArrayList<>();
+        for (int i = 0; i < to.getFieldCount(); i++) {
+            String field = to.getFieldName(i);
+            List<String> after = to.getFieldValues(i);
+            List<String> before = Collections.emptyList();
+            if (from != null) {
+                before = from.getValuesForField(field);
+                if (before == null) {
+                    continue;
+                }
+            }
+            if (!before.equals(after)) {
+                changes.add(new FieldChange(field, before, after));
+            }
+        }
+        return new StateDiff(from, to, changes);
+    }
+
+    public StateNode getFrom() {
+        return from;
+    }
+
+    public StateNode getTo() {
+        return to;
+    }
+
+    public List<FieldChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * getChange returns the change of field, or null if its values are the same in both states.
+     * @param String field
+     * @return FieldChange
+     */
+    public FieldChange getChange(String field) {
+        for (FieldChange change : changes) {
+            if (change.getField().equals(field)) {
+                return change;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+}
@@ -1,28 +1,72 @@
 package state;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * StateGraph represents a directed graph containing all states visited in the active simulation.
  */
 public class StateGraph {
+    // Nodes are stored in the order they were added, so the node with identifier i is at index i - 1.
     private List<StateNode> nodes;
+    // Index from a state to the node in the graph that represents it, keyed on StateNode content.
+    private Map<StateNode, StateNode> nodesByState;
+    // Body of the state tree graph that is rendered for the user. It is extended as nodes and edges
+    // are added, so exporting the graph does not need to walk the whole exploration history.
+    private StringBuilder stateTreeBody;
+    private List<StateGraphListener> listeners;
+    // Maps states to the key they are deduplicated by, or null to deduplicate by exact content.
+    private StateCanonicalizer canonicalizer;
 
     public StateGraph() {
         nodes = new ArrayList<>();
+        nodesByState = new HashMap<>();
+        stateTreeBody = new StringBuilder();
+        listeners = new ArrayList<>();
+    }
+
+    /**
+     * addListener registers listener to be notified of every node and edge added to the graph. The
+     * nodes and edges already in the graph are passed to listener first.
+     * @param StateGraphListener listener
+     */
+    public void addListener(StateGraphListener listener) {
+        listeners.add(listener);
+        for (StateNode node : nodes) {
+            listener.nodeAdded(node, null);
+        }
+        for (StateNode node : nodes) {
+            for (StateNode step : node.getSteps()) {
+                listener.stepAdded(node, step);
+            }
+        }
     }
     
+    /**
+     * setCanonicalizer deduplicates the nodes added from now on by their canonical form, so that states
+     * that only differ by a permutation of interchangeable atoms are represented by a single node.
+     * Existing nodes are kept, and the first node of every canonical form represents it.
+     * @param StateCanonicalizer canonicalizer, or null to deduplicate by exact content
+     */
+    public void setCanonicalizer(StateCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+        nodesByState.clear();
+        for (StateNode node : nodes) {
+            nodesByState.putIfAbsent(getKey(node), node);
+        }
+    }
+
     public StateNode getNode(int i){
     	return nodes.get(i);
     }
     public StateNode getNodeById(int identifier){
-    	for (StateNode i:nodes) {
-    		if (i.getIdentifier()==identifier) {
-    			return i;
-    		}
+    	if (identifier < 1 || identifier > nodes.size()) {
+    		return null;
     	}
-    	return null;
+    	return nodes.get(identifier - 1);
     }
     
     
@@ -40,15 +84,14 @@ public class StateGraph {
      */
     public void initWithNodes(List<StateNode> nodes) {
         this.nodes.clear();
+        this.nodesByState.clear();
+        this.stateTreeBody.setLength(0);
+        for (StateGraphListener listener : listeners) {
+            listener.graphCleared();
+        }
 
         for (int i = 0; i < nodes.size(); i++) {
-            StateNode node = nodes.get(i);
-            addNode(node);
-
-            if (i > 0) {
-                StateNode prevNode = nodes.get(i - 1);
-                prevNode.addStep(node);
-            }
+            addNode(nodes.get(i), i > 0 ? nodes.get(i - 1) : null);
         }
     }
 
@@ -64,26 +107,37 @@ public class StateGraph {
         // to the one we transitioned to.
         StateNode curNode = getExistingNode(startNode);
         if (curNode == null) {
-            addNode(startNode);
+            addNode(startNode, null);
             curNode = startNode;
         }
         for (StateNode node : nodes) {
             StateNode nextNode = getExistingNode(node);
             if (nextNode == null) {
                 nextNode = node;
-                addNode(nextNode);
+                addNode(nextNode, curNode);
             } else {
                 node.setIdentifier(nextNode.getIdentifier());
-            }
-
-            if (!curNode.getSteps().contains(nextNode)) {
-                curNode.addStep(nextNode);
+                if (!curNode.getSteps().contains(nextNode)) {
+                    addStep(curNode, nextNode);
+                }
             }
 
             curNode = nextNode;
         }
     }
 
+    /**
+     * addSuccessors adds an edge from startNode to each of successors, which are states one transition
+     * away from it, so that all branches out of startNode are part of the graph.
+     * @param StateNode startNode
+     * @param List<StateNode> successors
+     */
+    public void addSuccessors(StateNode startNode, List<StateNode> successors) {
+        for (StateNode successor : successors) {
+            addNodes(startNode, Collections.singletonList(successor));
+        }
+    }
+
     public int size() {
         return nodes.size();
     }
@@ -113,18 +167,89 @@ public class StateGraph {
         return sb.toString();
     }
 
-    private void addNode(StateNode node) {
+    /**
+     * getStateTreeDOTString returns the state tree graph, in which curNode is highlighted and
+     * stable and unstable Dash states are coloured. Only the highlight is computed per call.
+     * @param StateNode curNode, may be null
+     * @return String
+     */
+    public String getStateTreeDOTString(StateNode curNode) {
+        StringBuilder sb = new StringBuilder(stateTreeBody.length() + 64);
+        sb.append("digraph G {");
+        sb.append(stateTreeBody);
+        if (curNode != null) {
+            sb.append("S").append(curNode.getIdentifier()).append("[style=filled, fillcolor=yellow]\n");
+        }
+        sb.append("\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * restoreNode appends node to the graph as the node with the next identifier. It is used to
+     * rebuild a graph from a snapshot, after the graph has been cleared by initWithNodes.
+     * @param StateNode node
+     */
+    void restoreNode(StateNode node) {
+        addNode(node, null);
+    }
+
+    /**
+     * restoreStep adds the edge from one node of the graph to another when the graph is rebuilt
+     * from a snapshot.
+     * @param StateNode from
+     * @param StateNode to
+     */
+    void restoreStep(StateNode from, StateNode to) {
+        addStep(from, to);
+    }
+
+    /**
+     * addNode appends node to the graph and, if from is not null, the edge from from to it. Listeners
+     * are notified of both at once.
+     */
+    private void addNode(StateNode node, StateNode from) {
         nodes.add(node);
         node.setIdentifier(size());
+        // Traces may visit the same state more than once. Keep the first node for lookups, as
+        // a linear scan over the nodes would.
+        nodesByState.putIfAbsent(getKey(node), node);
+
+        stateTreeBody.append("S").append(node.getIdentifier()).append("\n");
+        if (node.hasStable()) {
+            String color = node.getStable() ? "green" : "red";
+            stateTreeBody.append("S").append(node.getIdentifier()).append("[color=").append(color).append("]\n");
+        }
+        if (from != null) {
+            appendStep(from, node);
+        }
+        for (StateGraphListener listener : listeners) {
+            listener.nodeAdded(node, from);
+        }
     }
 
-    private StateNode getExistingNode(StateNode node) {
-        for (StateNode existingNode : this.nodes) {
-            if (existingNode.equals(node)) {
-                return existingNode;
-            }
+    private void addStep(StateNode from, StateNode to) {
+        appendStep(from, to);
+        for (StateGraphListener listener : listeners) {
+            listener.stepAdded(from, to);
+        }
+    }
+
+    private void appendStep(StateNode from, StateNode to) {
+        from.addStep(to);
+
+        stateTreeBody.append("S").append(from.getIdentifier()).append(" -> S").append(to.getIdentifier());
+        String transitionName = to.getTransitionName();
+        if (!transitionName.isEmpty()) {
+            stateTreeBody.append("[label=").append(transitionName).append("]");
         }
+        stateTreeBody.append("\n");
+    }
+
+    private StateNode getExistingNode(StateNode node) {
+        return nodesByState.get(getKey(node));
+    }
 
-        return null;
+    private StateNode getKey(StateNode node) {
+        return canonicalizer == null ? node : canonicalizer.canonicalize(node);
     }
 }
@@ -0,0 +1,28 @@
+package state;
+
+/**
+ * StateGraphListener is notified as a StateGraph grows, so that views of the graph can be kept up
+ * to date incrementally instead of being rebuilt from every node.
+ */
+public interface StateGraphListener {
+    /**
+     * graphCleared is called when the graph is reinitialized, before the new nodes are added.
+     */
+    void graphCleared();
+
+    /**
+     * nodeAdded is called after node has been added to the graph and given its identifier. A node
+     * that is reached from another node is added together with the edge to it, so that views never
+     * see it without its incoming edge.
+     * @param StateNode node
+     * @param StateNode from, the node with the edge to node, or null if node was added on its own
+     */
+    void nodeAdded(StateNode node, StateNode from);
+
+    /**
+     * stepAdded is called after an edge between two nodes already in the graph has been added.
+     * @param StateNode from
+     * @param StateNode to
+     */
+    void stepAdded(StateNode from, StateNode to);
+}
@@ -6,48 +6,64 @@ import alloy.ParsingConf;
 import alloy.SigData;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import ca.uwaterloo.watform.core.DashStrings;
 /**
  * StateNode represents a single execution state of an Alloy transition system.
  */
 public class StateNode {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // Separators are outside the range of chars so that they cannot collide with string content.
+    private static final long VALUE_SEPARATOR = 0x10000L;
+    private static final long FIELD_SEPARATOR = 0x10001L;
+
+    private static final int[] NO_VALUES = new int[0];
+
     private List<StateNode> steps; // outgoing edges (states that can be stepped to from this state)
-    private SortedMap<String, List<String>> state; // the state that this node represents
+    private StateDictionary dictionary; // shared by all nodes of a model
+    // the state that this node represents: per field (in dictionary order), the identifiers of its
+    // values sorted by the value strings
+    private int[][] values;
     // can aldb support multi arity relations ??
     
     private int id;
     private ParsingConf parsingConf;
     private SigData sigData;
     private List<Integer> path; // redo with List<StateNode>
+    private long fingerprint; // content hash of state, valid only when fingerprintValid is set
+    private boolean fingerprintValid;
 
     public StateNode(SigData data, ParsingConf conf) {
+        this(data, conf, new StateDictionary(data));
+    }
+
+    public StateNode(SigData data, ParsingConf conf, StateDictionary dict) {
     	//System.out.println("New state node created ");
         sigData = data;
         parsingConf = conf;
+        dictionary = dict;
         steps = new ArrayList<>();
-        state = new TreeMap<>();
         path = new ArrayList<>();
-        for (String field : sigData.getFields()) {
-        	//System.out.println(field);
-            state.put(field, new ArrayList<>());
-        }
+        values = new int[dictionary.getFieldCount()][];
+        Arrays.fill(values, NO_VALUES);
     }
     //implement a function for look up in state map
     
     
     
     public boolean hasStable() {
-    	if (state.get(DashStrings.stableName)!=null) { //refer to strings in dash core 
+    	if (dictionary.getFieldIndex(DashStrings.stableName) >= 0) { //refer to strings in dash core 
     		return true;
     	}
     	return false;
     }
     
     public boolean getStable() {
-    	if (state.get("dsh_stable")!=null && state.get(DashStrings.stableName).contains(DashStrings.trueName)) {
+    	List<String> stable = getValuesForField(DashStrings.stableName);
+    	if (stable != null && stable.contains(DashStrings.trueName)) {
     		return true;
     	}
     	return false;
@@ -58,34 +74,123 @@ public class StateNode {
     }
     
     public String getTransitionName(){
-    	return String.join(", ", state.get(DashStrings.transTakenName+"0"));
+    	List<String> taken = getValuesForField(DashStrings.transTakenName+"0");
+    	return taken == null ? "" : String.join(", ", taken);
     }
     
     public List<String> getControlStateNames(){
-    	return state.get(DashStrings.confName+"0");
+    	return getValuesForField(DashStrings.confName+"0");
+    }
+
+    /**
+     * getValuesForField returns the values of field in sorted order.
+     * @param String field
+     * @return List<String>, or null if the state has no such field
+     */
+    public List<String> getValuesForField(String field) {
+        int fieldIndex = dictionary.getFieldIndex(field);
+        if (fieldIndex < 0) {
+            return null;
+        }
+        return decode(values[fieldIndex]);
     }
     		
     public void addValueToField(String field, String value) {
-        if (!state.containsKey(field)) {
+        int fieldIndex = dictionary.getFieldIndex(field);
+        if (fieldIndex < 0) {
             return;
         }
 
         // Ensure values are sorted upon insertion. For the following reasons:
         // 1. For user display.
         // 2. Enables comparison between StateNodes.
-        List<String> valuesForField = state.get(field);
-        for (int i = 0; i < valuesForField.size(); i++) {
-            if (value.compareTo(valuesForField.get(i)) > 0) {
-                continue;
+        fingerprintValid = false;
+        int[] ids = values[fieldIndex];
+        int lo = 0;
+        int hi = ids.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (value.compareTo(dictionary.getValue(ids[mid])) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
-
-            valuesForField.add(i, value);
-            return;
         }
 
-        valuesForField.add(value);
+        int[] updated = new int[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, lo);
+        updated[lo] = dictionary.intern(value);
+        System.arraycopy(ids, lo, updated, lo + 1, ids.length - lo);
+        values[fieldIndex] = updated;
     }
     
+    /**
+     * setFieldValues replaces the values of the field at fieldIndex with ids, which must already be
+     * sorted by their value strings.
+     * @param int fieldIndex
+     * @param int[] ids
+     */
+    void setFieldValues(int fieldIndex, int[] ids) {
+        fingerprintValid = false;
+        values[fieldIndex] = ids;
+    }
+
+    /**
+     * getFieldValueIds returns the dictionary identifiers of the values of the field at fieldIndex,
+     * sorted by their value strings. The array must not be modified.
+     * @param int fieldIndex
+     * @return int[]
+     */
+    int[] getFieldValueIds(int fieldIndex) {
+        return values[fieldIndex];
+    }
+
+    /**
+     * getFieldCount returns the number of fields of the state.
+     * @return int
+     */
+    int getFieldCount() {
+        return values.length;
+    }
+
+    /**
+     * getFieldName returns the name of the field at fieldIndex.
+     * @param int fieldIndex
+     * @return String
+     */
+    String getFieldName(int fieldIndex) {
+        return dictionary.getFieldName(fieldIndex);
+    }
+
+    /**
+     * getFieldValues returns the values of the field at fieldIndex in sorted order.
+     * @param int fieldIndex
+     * @return List<String>
+     */
+    List<String> getFieldValues(int fieldIndex) {
+        return decode(values[fieldIndex]);
+    }
+
+    /**
+     * withFieldValues returns a new node of the same model whose fields, in dictionary order, hold
+     * fieldValues instead of the values of this node.
+     * @param List<List<String>> fieldValues
+     * @return StateNode
+     */
+    StateNode withFieldValues(List<List<String>> fieldValues) {
+        StateNode node = new StateNode(sigData, parsingConf, dictionary);
+        for (int i = 0; i < values.length; i++) {
+            List<String> sorted = new ArrayList<>(fieldValues.get(i));
+            Collections.sort(sorted);
+            int[] ids = new int[sorted.size()];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = dictionary.intern(sorted.get(j));
+            }
+            node.values[i] = ids;
+        }
+        return node;
+    }
+
     public void storePath(List<Integer> input_path) {
     	path=input_path;
     }
@@ -114,14 +219,15 @@ public class StateNode {
     }
 
     public String stringForProperty(String property) {
-        if (!state.containsKey(property)) {
+        List<String> propertyValues = getValuesForField(property);
+        if (propertyValues == null) {
             return "Property not found.";
         }
 
         return String.format(
             "\n%s %s %s\n",
             AlloyConstants.BLOCK_INITIALIZER,
-            String.join(", ", state.get(property)),
+            String.join(", ", propertyValues),
             AlloyConstants.BLOCK_TERMINATOR
         );
     }
@@ -153,11 +259,49 @@ public class StateNode {
      */
     @Override
     public boolean equals(Object other) {
-        if (other == null) {
+        if (!(other instanceof StateNode)) {
             return false;
         }
         final StateNode otherNode = (StateNode) other;
-        return state.equals(otherNode.state);
+        if (getFingerprint() != otherNode.getFingerprint()) {
+            return false;
+        }
+        if (dictionary == otherNode.dictionary) {
+            return Arrays.deepEquals(values, otherNode.values);
+        }
+
+        // Nodes of different models cannot compare identifiers, so compare the values themselves.
+        if (dictionary.getFieldCount() != otherNode.dictionary.getFieldCount()) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (!dictionary.getFieldName(i).equals(otherNode.dictionary.getFieldName(i))) {
+                return false;
+            }
+            if (!decode(values[i]).equals(otherNode.decode(otherNode.values[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getFingerprint());
+    }
+
+    /**
+     * getFingerprint returns a 64-bit hash of the state that this node represents. Nodes that are
+     * equal have the same fingerprint, and the fingerprint does not depend on the node's identifier
+     * or edges. It is computed once and cached until a value is added to the state.
+     * @return long
+     */
+    public long getFingerprint() {
+        if (!fingerprintValid) {
+            fingerprint = computeFingerprint();
+            fingerprintValid = true;
+        }
+        return fingerprint;
     }
 
     /**
@@ -165,36 +309,32 @@ public class StateNode {
      * @return String representation of the state in correct Alloy model syntax
      */
     public String getAlloyInitString() {
-        StringBuilder sb = new StringBuilder();
-        for (SortedMap.Entry<String, List<String>> entry : state.entrySet()) {
-            List<String> vals = entry.getValue();
-            StringBuilder alloyFormattedValsBuilder = new StringBuilder();
-            String prefix = "";
-            for (String val : vals) {
-            	//System.out.println(val);
-                alloyFormattedValsBuilder.append(prefix);
-                prefix = String.format(" %s ", AlloyConstants.PLUS);
-                String[] values = val.split(AlloyConstants.SET_DELIMITER);
-                alloyFormattedValsBuilder.append(values[0]);
-                for (int i = 1; i < values.length; i++) {
-                    alloyFormattedValsBuilder.append(AlloyConstants.SET_DELIMITER);
-                    alloyFormattedValsBuilder.append(values[i]);
-                }
-            }
+        return AlloyUtils.makeStatePredicate(parsingConf.getInitPredicateName(), parsingConf.getStateSigName(), getAlloyStateConstraints());
+    }
 
-            String value = (alloyFormattedValsBuilder.length() == 0) ?
-                               AlloyUtils.getEmptyRelation(sigData.getArityForField(entry.getKey())) :
-                               alloyFormattedValsBuilder.toString();
+    /**
+     * Generate the constraints that fix every field of a state s to this instance's values, one per line.
+     * @return String
+     */
+    public String getAlloyStateConstraints() {
+        StringBuilder sb = new StringBuilder();
+        String plus = String.format(" %s ", AlloyConstants.PLUS);
+        for (int i = 0; i < values.length; i++) {
+            String field = dictionary.getFieldName(i);
+            // Tuple strings are stored in Alloy syntax already, so they are joined as they are.
+            String value = (values[i].length == 0) ?
+                               AlloyUtils.getEmptyRelation(sigData.getArityForField(field)) :
+                               String.join(plus, decode(values[i]));
             sb.append(
                 String.format(
                    "\ts.%s = %s\n",
-                    entry.getKey(),
+                    field,
                     value
                 )
             );
         }
 
-        return AlloyUtils.makeStatePredicate(parsingConf.getInitPredicateName(), parsingConf.getStateSigName(), sb.toString());
+        return sb.toString();
     }
 
     public int getIdentifier() {
@@ -206,9 +346,9 @@ public class StateNode {
     }
     
     public void printState() {
-    	for (String key : state.keySet()) {
-        	System.out.println(key);
-        	System.out.println(state.get(key));
+    	for (int i = 0; i < values.length; i++) {
+        	System.out.println(dictionary.getFieldName(i));
+        	System.out.println(decode(values[i]));
         }
     }
     
@@ -216,37 +356,69 @@ public class StateNode {
         StringBuilder sb = new StringBuilder();
         //System.out.println("calling getstatestring function");
         //printState();
-        for (String key : state.keySet()) {
-        	//System.out.println(key);
-            sb.append(String.format("\n%s: %s ", key, AlloyConstants.BLOCK_INITIALIZER));
-            //System.out.println(sb.toString());
-            sb.append(String.format("%s %s", String.join(", ", state.get(key)), AlloyConstants.BLOCK_TERMINATOR));
+        for (int i = 0; i < values.length; i++) {
+            sb.append(String.format("\n%s: %s ", dictionary.getFieldName(i), AlloyConstants.BLOCK_INITIALIZER));
+            sb.append(String.format("%s %s", String.join(", ", decode(values[i])), AlloyConstants.BLOCK_TERMINATOR));
         }
         sb.append("\n");
         
         return sb.toString();
     }
 
-    private String getDiffStateString(StateNode other) {
-        SortedMap<String, List<String>> otherState = other.state;
+    /**
+     * computeFingerprint hashes every field name and value of the state with 64-bit FNV-1a. Fields are
+     * visited in sorted order, and values are kept sorted, so the result only depends on the content.
+     * @return long
+     */
+    private long computeFingerprint() {
+        long hash = FNV_OFFSET_BASIS;
+        // Hash the strings rather than their identifiers so that equal nodes of different
+        // dictionaries have equal fingerprints.
+        for (int i = 0; i < values.length; i++) {
+            hash = fnvHash(hash, dictionary.getFieldName(i));
+            for (int id : values[i]) {
+                hash = fnvHash(hash, dictionary.getValue(id));
+            }
+            // Separate fields so that values cannot be attributed to the wrong field.
+            hash = (hash ^ FIELD_SEPARATOR) * FNV_PRIME;
+        }
+        return hash;
+    }
 
+    private static long fnvHash(long hash, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ VALUE_SEPARATOR) * FNV_PRIME;
+    }
+
+    private String getDiffStateString(StateNode other) {
         StringBuilder sb = new StringBuilder();
-        for (String key : state.keySet()) {
-            if (!otherState.containsKey(key)) {
+        for (int i = 0; i < values.length; i++) {
+            String key = dictionary.getFieldName(i);
+            int otherIndex = other.dictionary.getFieldIndex(key);
+            if (otherIndex < 0) {
                 continue;
             }
 
-            List<String> thisKeyContents = state.get(key);
-            List<String> otherKeyContents = otherState.get(key);
-
-            if (thisKeyContents.equals(otherKeyContents)) {
+            if (dictionary == other.dictionary ?
+                    Arrays.equals(values[i], other.values[otherIndex]) :
+                    decode(values[i]).equals(other.decode(other.values[otherIndex]))) {
                 continue;
             }
 
             sb.append(String.format("\n%s: %s ", key, AlloyConstants.BLOCK_INITIALIZER));
-            sb.append(String.format("%s %s", String.join(", ", state.get(key)), AlloyConstants.BLOCK_TERMINATOR));
+            sb.append(String.format("%s %s", String.join(", ", decode(values[i])), AlloyConstants.BLOCK_TERMINATOR));
         }
         sb.append("\n");
         return sb.toString();
     }
+
+    private List<String> decode(int[] ids) {
+        List<String> decoded = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            decoded.add(dictionary.getValue(id));
+        }
+        return decoded;
+    }
 }
@@ -0,0 +1,88 @@
+package state;
+
+import alloy.ParsingConf;
+import alloy.SigData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * StateNodeBuilder collects the field values of a sequence of states, in any order, and builds
+ * their StateNodes at once. Values are sorted a single time per field when the nodes are built,
+ * rather than on every insertion as StateNode.addValueToField does.
+ */
+public class StateNodeBuilder {
+    private final SigData sigData;
+    private final ParsingConf parsingConf;
+    private final StateDictionary dictionary;
+    private final List<List<List<String>>> values; // [state][field index], allocated on first value
+
+    public StateNodeBuilder(SigData data, ParsingConf conf, StateDictionary dict, int stateCount) {
+        sigData = data;
+        parsingConf = conf;
+        dictionary = dict;
+        values = new ArrayList<>(stateCount);
+        for (int i = 0; i < stateCount; i++) {
+            values.add(new ArrayList<>(Collections.nCopies(dictionary.getFieldCount(), null)));
+        }
+    }
+
+    /**
+     * getFieldIndex resolves a field name once so that addValue does not need to look it up per value.
+     * @param String field
+     * @return int, or -1 if the state sig has no such field
+     */
+    public int getFieldIndex(String field) {
+        return dictionary.getFieldIndex(field);
+    }
+
+    /**
+     * addValue records value for the field at fieldIndex of the state at stateIndex. Values for
+     * unknown fields or states are ignored.
+     * @param int stateIndex
+     * @param int fieldIndex
+     * @param String value
+     */
+    public void addValue(int stateIndex, int fieldIndex, String value) {
+        if (stateIndex < 0 || stateIndex >= values.size() || fieldIndex < 0) {
+            return;
+        }
+
+        List<List<String>> stateValues = values.get(stateIndex);
+        List<String> fieldValues = stateValues.get(fieldIndex);
+        if (fieldValues == null) {
+            fieldValues = new ArrayList<>();
+            stateValues.set(fieldIndex, fieldValues);
+        }
+        fieldValues.add(value);
+    }
+
+    /**
+     * build sorts the values of every field and creates one StateNode per state.
+     * @return List<StateNode>
+     */
+    public List<StateNode> build() {
+        List<StateNode> stateNodes = new ArrayList<>(values.size());
+        for (List<List<String>> stateValues : values) {
+            StateNode node = new StateNode(sigData, parsingConf, dictionary);
+            for (int fieldIndex = 0; fieldIndex < stateValues.size(); fieldIndex++) {
+                List<String> fieldValues = stateValues.get(fieldIndex);
+                if (fieldValues == null) {
+                    continue;
+                }
+
+                String[] sorted = fieldValues.toArray(new String[0]);
+                Arrays.sort(sorted);
+                int[] ids = new int[sorted.length];
+                for (int i = 0; i < sorted.length; i++) {
+                    ids[i] = dictionary.intern(sorted[i]);
+                }
+                node.setFieldValues(fieldIndex, ids);
+            }
+            stateNodes.add(node);
+        }
+        return stateNodes;
+    }
+}
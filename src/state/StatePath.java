@@ -110,6 +110,18 @@ public class StatePath {
         tempPathSize = 0;
     }
 
+    /**
+     * restore replaces the path with the given nodes, as they were when a snapshot was taken.
+     * @param List<StateNode> path
+     * @param int position
+     * @param int tempPathSize
+     */
+    void restore(List<StateNode> path, int position, int tempPathSize) {
+        this.path = new ArrayList<>(path);
+        this.position = position;
+        this.tempPathSize = tempPathSize;
+    }
+
     public void clearPath() {
         path.clear();
         tempPathSize = 0;
@@ -0,0 +1,206 @@
+package state;
+
+import alloy.ParsingConf;
+import alloy.SigData;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StateSnapshot writes the states of a session, i.e. the StateDictionary, StateGraph and StatePath of
+ * a model, in a compact binary form, and reads them back without solving anything.
+ *
+ * Every node is written once, as the dictionary identifiers of its values, even if it is both in the
+ * graph and in the path. Nodes of the path that are copies of graph nodes, as after an alt, are
+ * written separately so that the restored path is the same as the original.
+ */
+public class StateSnapshot {
+    /**
+     * write writes dictionary, graph and path to out.
+     * @param DataOutput out
+     * @param StateDictionary dictionary
+     * @param StateGraph graph
+     * @param StatePath path
+     * @throws IOException if writing to out fails.
+     */
+    public static void write(DataOutput out, StateDictionary dictionary, StateGraph graph, StatePath path) throws IOException {
+        out.writeInt(dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            writeString(out, dictionary.getValue(i));
+        }
+
+        // Number the graph nodes first, then the path nodes and edge targets that are not in the graph.
+        List<StateNode> nodes = new ArrayList<>();
+        Map<StateNode, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < graph.size(); i++) {
+            addNode(graph.getNode(i), nodes, indices);
+        }
+        for (int i = 0; i < path.getLength(); i++) {
+            addNode(path.getNode(i), nodes, indices);
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (StateNode step : nodes.get(i).getSteps()) {
+                addNode(step, nodes, indices);
+            }
+        }
+
+        out.writeInt(nodes.size());
+        for (StateNode node : nodes) {
+            out.writeInt(node.getIdentifier());
+            for (int i = 0; i < node.getFieldCount(); i++) {
+                int[] ids = node.getFieldValueIds(i);
+                out.writeInt(ids.length);
+                for (int id : ids) {
+                    out.writeInt(id);
+                }
+            }
+            List<Integer> nodePath = node.getPath();
+            out.writeInt(nodePath.size());
+            for (int id : nodePath) {
+                out.writeInt(id);
+            }
+            out.writeInt(node.getSteps().size());
+            for (StateNode step : node.getSteps()) {
+                out.writeInt(indices.get(step));
+            }
+        }
+
+        out.writeInt(graph.size());
+        out.writeInt(path.getLength());
+        for (int i = 0; i < path.getLength(); i++) {
+            out.writeInt(indices.get(path.getNode(i)));
+        }
+        out.writeInt(path.getPosition());
+        out.writeInt(path.getTempPathSize());
+    }
+
+    /**
+     * read reads the states written by write, and restores them into graph and path.
+     * @param DataInput in
+     * @param SigData sigData, the state sig of the model
+     * @param ParsingConf conf, the configuration of the model
+     * @param StateGraph graph, which is cleared first
+     * @param StatePath path, which is replaced
+     * @return StateDictionary, the dictionary of the restored nodes
+     * @throws IOException if reading from in fails or the snapshot is malformed.
+     */
+    public static StateDictionary read(
+        DataInput in, SigData sigData, ParsingConf conf, StateGraph graph, StatePath path
+    ) throws IOException {
+        StateDictionary dictionary = new StateDictionary(sigData);
+        int dictionarySize = in.readInt();
+        for (int i = 0; i < dictionarySize; i++) {
+            // Values are interned in identifier order, so they keep their identifiers.
+            dictionary.intern(readString(in));
+        }
+
+        int nodeCount = in.readInt();
+        List<StateNode> nodes = new ArrayList<>(nodeCount);
+        List<int[]> steps = new ArrayList<>(nodeCount);
+        for (int n = 0; n < nodeCount; n++) {
+            StateNode node = new StateNode(sigData, conf, dictionary);
+            node.setIdentifier(in.readInt());
+            for (int i = 0; i < node.getFieldCount(); i++) {
+                int[] ids = new int[in.readInt()];
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = readIndex(in, dictionarySize);
+                }
+                node.setFieldValues(i, ids);
+            }
+            List<Integer> nodePath = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                nodePath.add(in.readInt());
+            }
+            node.storePath(nodePath);
+            int[] nodeSteps = new int[in.readInt()];
+            for (int i = 0; i < nodeSteps.length; i++) {
+                nodeSteps[i] = readIndex(in, nodeCount);
+            }
+            nodes.add(node);
+            steps.add(nodeSteps);
+        }
+
+        int graphSize = in.readInt();
+        if (graphSize < 0 || graphSize > nodeCount) {
+            throw new IOException("Malformed snapshot.");
+        }
+        graph.initWithNodes(new ArrayList<>());
+        for (int i = 0; i < graphSize; i++) {
+            graph.restoreNode(nodes.get(i));
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int step : steps.get(i)) {
+                if (i < graphSize && step < graphSize) {
+                    graph.restoreStep(nodes.get(i), nodes.get(step));
+                } else {
+                    nodes.get(i).addStep(nodes.get(step));
+                }
+            }
+        }
+
+        List<StateNode> pathNodes = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            pathNodes.add(nodes.get(readIndex(in, nodeCount)));
+        }
+        int position = in.readInt();
+        int tempPathSize = in.readInt();
+        path.restore(pathNodes, position, tempPathSize);
+        return dictionary;
+    }
+
+    /**
+     * writeString writes s, which may be null or longer than DataOutput.writeUTF allows.
+     * @param DataOutput out
+     * @param String s
+     * @throws IOException if writing to out fails.
+     */
+    public static void writeString(DataOutput out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * readString reads a string written by writeString.
+     * @param DataInput in
+     * @return String, or null if null was written
+     * @throws IOException if reading from in fails.
+     */
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Malformed snapshot.");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void addNode(StateNode node, List<StateNode> nodes, Map<StateNode, Integer> indices) {
+        if (node != null && !indices.containsKey(node)) {
+            indices.put(node, nodes.size());
+            nodes.add(node);
+        }
+    }
+
+    private static int readIndex(DataInput in, int size) throws IOException {
+        int index = in.readInt();
+        if (index < 0 || index >= size) {
+            throw new IOException("Malformed snapshot.");
+        }
+        return index;
+    }
+}
@@ -2,6 +2,7 @@ package alloy;
 
 import edu.mit.csail.sdg.alloy4.Err;
 import edu.mit.csail.sdg.ast.Sig;
+import edu.mit.csail.sdg.parser.CompModule;
 import edu.mit.csail.sdg.translator.A4Solution;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +48,87 @@ public class TestAlloyInterface {
         });
     }
 
+    @Test
+    public void testCompileFromString() throws IOException {
+        File model = createModelForTesting();
+        String modelText = new String(Files.readAllBytes(model.toPath())) + "run {} for 2 State";
+        File virtualModel = new File(tempFolder.getRoot(), "_tmp_test.als");
+
+        A4Solution sol = AlloyInterface.run(AlloyInterface.compileFromString(modelText, virtualModel.getPath()));
+        assertNotNull(sol);
+        assertFalse(virtualModel.exists());
+
+        Sig sig = AlloyInterface.getSigFromA4Solution(sol, "State");
+        assertEquals(2, sol.eval(sig).size());
+    }
+
+    @Test
+    public void testCompileFromString_importRelativeToModelPath() throws IOException {
+        File submodule = tempFolder.newFile("switch_state.als");
+        Files.write(submodule.toPath(), "module switch_state\nabstract sig SwitchState {}\n".getBytes());
+        String modelText = String.join("\n",
+            "open switch_state",
+            "sig State { switch: SwitchState }",
+            "run {} for 2 State"
+        );
+        File virtualModel = new File(tempFolder.getRoot(), "_tmp_test.als");
+
+        assertNotNull(AlloyInterface.compileFromString(modelText, virtualModel.getPath()));
+    }
+
+    @Test
+    public void testCompileFromString_cached() throws IOException {
+        File model = createModelForTesting();
+        String modelText = new String(Files.readAllBytes(model.toPath()));
+        File virtualModel = new File(tempFolder.getRoot(), "_tmp_test.als");
+        AlloyInterface.clearModuleCache();
+
+        CompModule first = AlloyInterface.compileFromString(modelText, virtualModel.getPath());
+        CompModule second = AlloyInterface.compileFromString(modelText, virtualModel.getPath());
+        assertSame(first, second);
+        assertEquals(1, AlloyInterface.getModuleCacheHits());
+        assertEquals(1, AlloyInterface.getModuleCacheMisses());
+
+        CompModule third = AlloyInterface.compileFromString(modelText + "run {} for 2 State", virtualModel.getPath());
+        assertNotSame(first, third);
+        assertEquals(1, AlloyInterface.getModuleCacheHits());
+        assertEquals(2, AlloyInterface.getModuleCacheMisses());
+    }
+
+    @Test
+    public void testCompileFromString_cachedImportModified() throws IOException {
+        File submodule = tempFolder.newFile("switch_state.als");
+        Files.write(submodule.toPath(), "module switch_state\nabstract sig SwitchState {}\n".getBytes());
+        String modelText = String.join("\n",
+            "open switch_state",
+            "sig State { switch: SwitchState }",
+            "run {} for 2 State"
+        );
+        File virtualModel = new File(tempFolder.getRoot(), "_tmp_test.als");
+        AlloyInterface.clearModuleCache();
+
+        CompModule first = AlloyInterface.compileFromString(modelText, virtualModel.getPath());
+        assertSame(first, AlloyInterface.compileFromString(modelText, virtualModel.getPath()));
+
+        Files.write(submodule.toPath(), "module switch_state\nabstract sig SwitchState {}\nsig On extends SwitchState {}\n".getBytes());
+        assertTrue(submodule.setLastModified(submodule.lastModified() + 2000));
+        CompModule second = AlloyInterface.compileFromString(modelText, virtualModel.getPath());
+        assertNotSame(first, second);
+        assertEquals(1, AlloyInterface.getModuleCacheHits());
+        assertEquals(2, AlloyInterface.getModuleCacheMisses());
+        assertTrue(second.getAllReachableSigs().toString().contains("On"));
+    }
+
+    @Test
+    public void testCompileFromString_failureSyntax() throws IOException {
+        File model = createModelForTesting();
+        String modelText = new String(Files.readAllBytes(model.toPath())) + "}{";
+
+        assertThrows(Err.class, () -> {
+            AlloyInterface.compileFromString(modelText, model.getPath());
+        });
+    }
+
     @Test
     public void testRun() throws IOException {
         File model = createModelForTesting();
@@ -72,6 +154,19 @@ public class TestAlloyInterface {
         assertEquals(4, sol.eval(sig).size());
     }
 
+    @Test
+    public void testRun_translationFailure() throws IOException {
+        File model = createModelForTesting();
+        // The bitwidth is only checked when the command is translated, on the solve thread.
+        appendToFile(model, "run {} for 2 State, 50 int");
+        CompModule module = AlloyInterface.compile(model.getPath());
+
+        Err e = assertThrows(Err.class, () -> {
+            AlloyInterface.run(module);
+        });
+        assertTrue(e.msg.contains("bitwidth"));
+    }
+
     @Test
     public void testRun_multipleCommands() throws IOException {
         File model = createModelForTesting();
@@ -89,6 +184,78 @@ public class TestAlloyInterface {
         assertEquals(2, sol.eval(sig).size());
     }
 
+    @Test
+    public void testRunWithConstraint() throws IOException {
+        File model = createModelForTesting();
+        appendToFile(model, "run {} for 2 State");
+        CompModule module = AlloyInterface.compile(model.getPath());
+
+        // The init predicate of the model puts the first state in Off.
+        A4Solution sol = AlloyInterface.runWithConstraint(module, AlloyUtils.getFirstStateConstraint("\ts.switch = Off\n"));
+        assertTrue(sol.satisfiable());
+        sol = AlloyInterface.runWithConstraint(module, AlloyUtils.getFirstStateConstraint("\ts.switch = On\n"));
+        assertFalse(sol.satisfiable());
+
+        // The compiled module itself is left unchanged.
+        assertTrue(AlloyInterface.run(module).satisfiable());
+    }
+
+    @Test
+    public void testRunWithConstraint_failureSyntax() throws IOException {
+        File model = createModelForTesting();
+        appendToFile(model, "run {} for 2 State");
+        CompModule module = AlloyInterface.compile(model.getPath());
+
+        assertThrows(Err.class, () -> {
+            AlloyInterface.runWithConstraint(module, "}{");
+        });
+    }
+
+    @Test
+    public void testRun_timeout() throws IOException {
+        File model = createModelForTesting();
+        appendToFile(model, "run {} for 20 State");
+        CompModule module = AlloyInterface.compile(model.getPath());
+
+        AlloyInterface.setSolveTimeout(1);
+        try {
+            Err e = assertThrows(Err.class, () -> {
+                AlloyInterface.run(module);
+            });
+            assertEquals(String.format(AlloyConstants.SOLVE_TIMED_OUT, 1), e.msg);
+        } finally {
+            AlloyInterface.setSolveTimeout(0);
+        }
+    }
+
+    @Test
+    public void testRun_timeoutAbandonedSolvesFinish() throws IOException, InterruptedException {
+        File model = createModelForTesting();
+        appendToFile(model, "run {} for 20 State");
+        CompModule module = AlloyInterface.compile(model.getPath());
+
+        AlloyInterface.setSolveTimeout(1);
+        try {
+            assertThrows(Err.class, () -> {
+                AlloyInterface.run(module);
+            });
+        } finally {
+            AlloyInterface.setSolveTimeout(0);
+        }
+        // A solve stopped during SAT solving is counted until its thread finishes it.
+        long deadline = System.currentTimeMillis() + 60000;
+        while (AlloyInterface.getAbandonedSolves() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, AlloyInterface.getAbandonedSolves());
+        assertNotNull(AlloyInterface.run(module));
+    }
+
+    @Test
+    public void testCancelSolves_noSolves() {
+        assertEquals(0, AlloyInterface.cancelSolves());
+    }
+
     @Test
     public void testSolutionFromXMLFile() throws Exception {
         File model = createModelForTesting();
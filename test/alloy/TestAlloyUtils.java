@@ -146,6 +146,66 @@ public class TestAlloyUtils {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void testAnnotatedTransitionSystemUntilWithin() {
+        String model = "Some model";
+        int steps = 5;
+        String expected = String.join("\n",
+            "open util/ordering[State] as aldb_order",
+            "",
+            "Some model",
+            "",
+            "one sig aldb_until { hit: one State }",
+            "",
+            "fact { init[aldb_order/first] }",
+            "",
+            "fact { break[aldb_until.hit] and aldb_until.hit != aldb_order/first and " +
+                "(all s: aldb_order/prevs[aldb_until.hit] - aldb_order/first | not break[s]) }",
+            "",
+            "fact { all s: aldb_order/prevs[aldb_until.hit], sprime: s.(aldb_order/next) { next[s, sprime] } }",
+            "",
+            "run {  } for exactly 6 State"
+        );
+        String result = AlloyUtils.annotatedTransitionSystemUntilWithin(
+                            model,
+                            new ParsingConf(),
+                            steps
+                        );
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testGetUnconstrainedInitPredicate() {
+        String expected = String.join("\n",
+            "",
+            "pred init[s: State] {",
+            "}",
+            ""
+        );
+        assertEquals(expected, AlloyUtils.getUnconstrainedInitPredicate(new ParsingConf()));
+    }
+
+    @Test
+    public void testGetFirstStateConstraint() {
+        String expected = String.join("\n",
+            "let s = aldb_order/first | {",
+            "\ts.f = a and",
+            "\ts.g = none",
+            "}"
+        );
+        assertEquals(expected, AlloyUtils.getFirstStateConstraint("\ts.f = a\n\ts.g = none\n"));
+    }
+
+    @Test
+    public void testGetNextStateConstraint() {
+        String expected = String.join("\n",
+            "let s = aldb_order/first.(aldb_order/next) | {",
+            "\ts.f = a",
+            "}"
+        );
+        assertEquals(expected, AlloyUtils.getNextStateConstraint("\ts.f = a\n"));
+    }
+
     @Test
     public void testGetBreakPredicate() {
         List<String> rawConstraints = new ArrayList<String>();
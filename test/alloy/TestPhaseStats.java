@@ -0,0 +1,64 @@
+package alloy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPhaseStats {
+    @Before
+    public void init() {
+        PhaseStats.reset();
+    }
+
+    @Test
+    public void testStart() {
+        PhaseStats.start(PhaseStats.Phase.PARSE).stop();
+        PhaseStats.start(PhaseStats.Phase.PARSE).stop();
+
+        assertEquals(2, PhaseStats.getCount(PhaseStats.Phase.PARSE));
+        assertEquals(0, PhaseStats.getCount(PhaseStats.Phase.SOLVE));
+        assertEquals(2, PhaseStats.getHistogram(PhaseStats.Phase.PARSE)[0]);
+    }
+
+    @Test
+    public void testStart_histogram() throws InterruptedException {
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.RENDER);
+        Thread.sleep(5);
+        timer.stop();
+
+        long[] histogram = PhaseStats.getHistogram(PhaseStats.Phase.RENDER);
+        assertEquals(0, histogram[0]);
+        assertEquals(0, histogram[1]);
+        assertEquals(0, histogram[2]);
+        long slower = 0;
+        for (int i = 3; i < histogram.length; i++) {
+            slower += histogram[i];
+        }
+        assertEquals(1, slower);
+    }
+
+    @Test
+    public void testSetProblem() {
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.SOLVE);
+        timer.setProblem(10, 100, 400);
+        timer.stop();
+
+        assertEquals(1, PhaseStats.getProblemCount());
+        String stats = PhaseStats.format();
+        assertTrue(stats.contains("SAT problems: 1, mean 100 variables (10 primary) and 400 clauses"));
+        assertTrue(stats.contains("\nsolve\n  < 1 ms"));
+    }
+
+    @Test
+    public void testReset() {
+        PhaseStats.Timer timer = PhaseStats.start(PhaseStats.Phase.SOLVE);
+        timer.setProblem(10, 100, 400);
+        timer.stop();
+        PhaseStats.reset();
+
+        assertEquals(0, PhaseStats.getCount(PhaseStats.Phase.SOLVE));
+        assertEquals(0, PhaseStats.getProblemCount());
+        assertFalse(PhaseStats.format().contains("SAT problems"));
+    }
+}
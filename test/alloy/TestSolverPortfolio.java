@@ -0,0 +1,90 @@
+package alloy;
+
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.alloy4.ErrorFatal;
+import edu.mit.csail.sdg.translator.A4Options;
+import edu.mit.csail.sdg.translator.A4Options.SatSolver;
+import edu.mit.csail.sdg.translator.A4Solution;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class TestSolverPortfolio {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testSolve() throws Err {
+        SolverPortfolio portfolio = new SolverPortfolio(new A4Options(), Arrays.asList(SatSolver.SAT4J));
+        String modelPath = new File(tempFolder.getRoot(), "_tmp_test.als").getPath();
+        SolverPortfolio.Run run = (options, racer) -> AlloyInterface.run(
+            AlloyInterface.compileFromStringUncached("sig A {}\nrun {} for 2 A", modelPath)
+        );
+
+        for (int i = 1; i < SolverPortfolio.RACES_PER_MODEL; i++) {
+            A4Solution sol = portfolio.solve(modelPath, run);
+            assertTrue(sol.satisfiable());
+            assertNull(portfolio.getBestSolver(modelPath));
+        }
+        portfolio.solve(modelPath, run);
+        assertEquals(SatSolver.SAT4J, portfolio.getBestSolver(modelPath));
+        assertEquals(
+            String.format("_tmp_test.als (%s %d)", SatSolver.SAT4J.id(), SolverPortfolio.RACES_PER_MODEL),
+            portfolio.getStats()
+        );
+    }
+
+    @Test
+    public void testSolve_failure() {
+        SolverPortfolio portfolio = new SolverPortfolio(new A4Options(), Arrays.asList(SatSolver.SAT4J));
+        assertThrows(Err.class, () -> {
+            portfolio.solve("model.als", (options, racer) -> {
+                throw new ErrorFatal("failed");
+            });
+        });
+        assertEquals("none", portfolio.getStats());
+    }
+
+    @Test
+    public void testSolve_racerFailure() throws Err {
+        SolverPortfolio portfolio = new SolverPortfolio(
+            new A4Options(), Arrays.asList(SatSolver.SAT4J, SatSolver.MiniSatJNI)
+        );
+        String modelPath = new File(tempFolder.getRoot(), "_tmp_test.als").getPath();
+        CountDownLatch failed = new CountDownLatch(1);
+        A4Solution sol = portfolio.solve(modelPath, (options, racer) -> {
+            if (options.solver == SatSolver.SAT4J) {
+                failed.countDown();
+                throw new ErrorFatal("failed");
+            }
+            try {
+                failed.await();
+            } catch (InterruptedException e) {
+                throw new ErrorFatal("interrupted");
+            }
+            return AlloyInterface.run(
+                AlloyInterface.compileFromStringUncached("sig A {}\nrun {} for 2 A", modelPath)
+            );
+        });
+        assertTrue(sol.satisfiable());
+
+        List<SatSolver> solvers = Collections.synchronizedList(new ArrayList<>());
+        portfolio.solve(modelPath, (options, racer) -> {
+            solvers.add(options.solver);
+            return AlloyInterface.run(
+                AlloyInterface.compileFromStringUncached("sig A {}\nrun {} for 2 A", modelPath)
+            );
+        });
+        assertEquals(Arrays.asList(SatSolver.MiniSatJNI), solvers);
+    }
+}
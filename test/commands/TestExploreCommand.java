@@ -0,0 +1,88 @@
+package commands;
+
+import commands.ExploreCommand;
+import simulation.SimulationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class TestExploreCommand extends TestCommand {
+    private final ExploreCommand explore = new ExploreCommand();
+    private final SimulationManager simulationManager = mock(SimulationManager.class);
+
+    @Test
+    public void testGetName() {
+        assertEquals(explore.getName(), CommandConstants.EXPLORE_NAME);
+    }
+
+    @Test
+    public void testGetDescription() {
+        assertEquals(explore.getDescription(), CommandConstants.EXPLORE_DESCRIPTION);
+    }
+
+    @Test
+    public void testGetHelp() {
+        assertEquals(explore.getHelp(), CommandConstants.EXPLORE_HELP);
+    }
+
+    @Test
+    public void testRequiresFile() {
+        assertFalse(explore.requiresFile());
+    }
+
+    @Test
+    public void testExecute_default() {
+        when(simulationManager.isInitialized()).thenReturn(true);
+
+        String[] input = {"explore"};
+        explore.execute(input, simulationManager);
+        verify(simulationManager).explore(eq(3), eq(1000), any());
+    }
+
+    @Test
+    public void testExecute_depthAndMaxStates() {
+        when(simulationManager.isInitialized()).thenReturn(true);
+
+        String[] input = {"explore", "5", "200"};
+        explore.execute(input, simulationManager);
+        verify(simulationManager).explore(eq(5), eq(200), any());
+    }
+
+    @Test
+    public void testExecute_notInitialized() {
+        setupStreams();
+        when(simulationManager.isInitialized()).thenReturn(false);
+
+        String[] input = {"explore"};
+        explore.execute(input, simulationManager);
+        verify(simulationManager, never()).explore(anyInt(), anyInt(), any());
+        assertEquals(CommandConstants.NO_MODEL_LOADED + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_notInteger() {
+        setupStreams();
+        when(simulationManager.isInitialized()).thenReturn(true);
+
+        String[] input = {"explore", "a"};
+        explore.execute(input, simulationManager);
+        verify(simulationManager, never()).explore(anyInt(), anyInt(), any());
+        assertEquals(CommandConstants.INTEGER_ERROR + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_lessThanOne() {
+        setupStreams();
+        when(simulationManager.isInitialized()).thenReturn(true);
+
+        String[] input = {"explore", "2", "0"};
+        explore.execute(input, simulationManager);
+        verify(simulationManager, never()).explore(anyInt(), anyInt(), any());
+        assertEquals(CommandConstants.GR_ONE_ERROR + "\n", outContent.toString());
+        restoreStreams();
+    }
+}
@@ -18,14 +18,18 @@ public class TestHelpCommand extends TestCommand {
         "break          -- Control the set of constraints used",
         "current        -- Display the current state",
         "dot            -- Dump DOT graph to disk",
+        "explore        -- Explore the states reachable from the current state",
         "help           -- Display the list of available commands",
         "history        -- Display past states",
         "init           -- Return to the initial state of the active model",
         "load           -- Load an Alloy model",
         "quit           -- Exit ALDB",
+        "render         -- Render the graphs of the current state",
         "reverse-step   -- Go back n steps in the current state traversal path",
         "scope          -- Display scope set",
         "set            -- Set ALDB options",
+        "source         -- Run the commands in a file",
+        "stats          -- Display performance statistics",
         "step           -- Perform a state transition of n steps",
         "trace          -- Load a saved Alloy XML instance",
         "until          -- Run until constraints are met",
@@ -0,0 +1,67 @@
+package commands;
+
+import commands.RenderCommand;
+import simulation.RenderPolicy;
+import simulation.SimulationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class TestRenderCommand extends TestCommand {
+    private final RenderCommand render = new RenderCommand();
+    private final SimulationManager simulationManager = mock(SimulationManager.class);
+
+    @Test
+    public void testGetName() {
+        assertEquals(render.getName(), CommandConstants.RENDER_NAME);
+    }
+
+    @Test
+    public void testGetDescription() {
+        assertEquals(render.getDescription(), CommandConstants.RENDER_DESCRIPTION);
+    }
+
+    @Test
+    public void testGetHelp() {
+        assertEquals(render.getHelp(), CommandConstants.RENDER_HELP);
+    }
+
+    @Test
+    public void testRequiresFile() {
+        assertFalse(render.requiresFile());
+    }
+
+    @Test
+    public void testExecute() {
+        when(simulationManager.isInitialized()).thenReturn(true);
+        when(simulationManager.getRenderPolicy()).thenReturn(RenderPolicy.INTERACTIVE);
+        String[] input = {"render"};
+        render.execute(input, simulationManager);
+        verify(simulationManager).render();
+    }
+
+    @Test
+    public void testExecute_headless() {
+        setupStreams();
+        when(simulationManager.isInitialized()).thenReturn(true);
+        when(simulationManager.getRenderPolicy()).thenReturn(RenderPolicy.HEADLESS);
+        String[] input = {"render"};
+        render.execute(input, simulationManager);
+        verify(simulationManager, never()).render();
+        assertEquals(CommandConstants.RENDER_HEADLESS + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_uninitialized() {
+        setupStreams();
+        when(simulationManager.isInitialized()).thenReturn(false);
+        String[] input = {"render"};
+        render.execute(input, simulationManager);
+        verify(simulationManager, never()).render();
+        assertEquals(CommandConstants.NO_MODEL_LOADED + "\n", outContent.toString());
+        restoreStreams();
+    }
+}
@@ -175,4 +175,200 @@ public class TestSetCommand extends TestCommand {
 
         restoreStreams();
     }
+
+    @Test
+    public void testExecute_setLayoutInvalidValue() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "layout", "foo"};
+        set.execute(input, simulationManager);
+        verifyZeroInteractions(simulationManager);
+        assertEquals(set.getHelp() + "\n", outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setLayoutGraphviz() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "layout", "graphviz"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setGraphvizLayout(true);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setLayoutJava() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "layout", "java"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setGraphvizLayout(false);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setParallel() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "parallel", "8"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSearchThreads(8);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setParallelOff() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "parallel", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSearchThreads(0);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setPortfolioOn() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "portfolio", "on"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSolverPortfolio(true);
+        assertEquals("", outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setPortfolioOff() throws IOException {
+        setupStreams();
+
+        when(simulationManager.getSolverStats()).thenReturn("stats");
+        String[] input = {"set", "portfolio", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSolverPortfolio(false);
+        assertEquals(String.format(CommandConstants.PORTFOLIO_STATS, "stats"), outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setPrefetchOn() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "prefetch", "on"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setPrefetch(true);
+        assertEquals("", outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setPrefetchOff() throws IOException {
+        setupStreams();
+
+        when(simulationManager.getPrefetchStats()).thenReturn("stats");
+        String[] input = {"set", "prefetch", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setPrefetch(false);
+        assertEquals(String.format(CommandConstants.PREFETCH_STATS, "stats"), outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setPrefetchInvalidValue() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "prefetch", "foo"};
+        set.execute(input, simulationManager);
+        verifyZeroInteractions(simulationManager);
+        assertEquals(set.getHelp() + "\n", outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setSuccessors() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "successors", "16"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSuccessorCap(16);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setSuccessorsOff() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "successors", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSuccessorCap(0);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setSuccessorsInvalidValue() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "successors", "0"};
+        set.execute(input, simulationManager);
+        verifyZeroInteractions(simulationManager);
+        assertEquals(CommandConstants.GR_ONE_ERROR + "\n", outContent.toString());
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setSymmetryOn() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "symmetry", "on"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSymmetryReduction(true);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setSymmetryOff() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "symmetry", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSymmetryReduction(false);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setTimeout() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "timeout", "5000"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSolveTimeout(5000);
+
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_setTimeoutOff() throws IOException {
+        setupStreams();
+
+        String[] input = {"set", "timeout", "off"};
+        set.execute(input, simulationManager);
+        verify(simulationManager).setSolveTimeout(0);
+
+        restoreStreams();
+    }
 }
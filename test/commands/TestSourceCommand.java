@@ -0,0 +1,90 @@
+package commands;
+
+import commands.SourceCommand;
+import simulation.SimulationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class TestSourceCommand extends TestCommand {
+    private final SourceCommand source = new SourceCommand();
+    private final SimulationManager simulationManager = mock(SimulationManager.class);
+
+    @Test
+    public void testGetName() {
+        assertEquals(source.getName(), CommandConstants.SOURCE_NAME);
+    }
+
+    @Test
+    public void testGetDescription() {
+        assertEquals(source.getDescription(), CommandConstants.SOURCE_DESCRIPTION);
+    }
+
+    @Test
+    public void testGetHelp() {
+        assertEquals(source.getHelp(), CommandConstants.SOURCE_HELP);
+    }
+
+    @Test
+    public void testRequiresFile() {
+        assertTrue(source.requiresFile());
+    }
+
+    @Test
+    public void testExecute() throws IOException {
+        setupStreams();
+        when(simulationManager.getStats()).thenReturn("");
+        File script = createFileWithContent("# Reset, then show the statistics.\n\nstats reset\n  stats  \n");
+        String[] input = {"source", script.getPath()};
+        source.execute(input, simulationManager);
+
+        // Rendering is deferred around the whole script.
+        InOrder inOrder = inOrder(simulationManager);
+        inOrder.verify(simulationManager).deferRendering();
+        inOrder.verify(simulationManager).resetStats();
+        inOrder.verify(simulationManager).getStats();
+        inOrder.verify(simulationManager).resumeRendering();
+        assertEquals(CommandConstants.STATS_RESET + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_nested() throws IOException {
+        setupStreams();
+        File script = createFileWithContent("");
+        Files.write(script.toPath(), ("source " + script.getPath() + "\n").getBytes());
+        String[] input = {"source", script.getPath()};
+        source.execute(input, simulationManager);
+
+        assertEquals(String.format(CommandConstants.SOURCE_TOO_DEEP, 16), outContent.toString());
+        verify(simulationManager, times(16)).deferRendering();
+        verify(simulationManager, times(16)).resumeRendering();
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_noFileSpecified() {
+        setupStreams();
+        String[] input = {"source"};
+        source.execute(input, simulationManager);
+        assertEquals(CommandConstants.NO_FILE_SPECIFIED + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_noSuchFile() {
+        setupStreams();
+        String[] input = {"source", "nonexistent-file"};
+        source.execute(input, simulationManager);
+        assertEquals(String.format(CommandConstants.NO_SUCH_FILE, "nonexistent-file"), outContent.toString());
+        verify(simulationManager, never()).deferRendering();
+        restoreStreams();
+    }
+}
@@ -0,0 +1,65 @@
+package commands;
+
+import commands.StatsCommand;
+import simulation.SimulationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+
+public class TestStatsCommand extends TestCommand {
+    private final StatsCommand stats = new StatsCommand();
+    private final SimulationManager simulationManager = mock(SimulationManager.class);
+
+    @Test
+    public void testGetName() {
+        assertEquals(stats.getName(), CommandConstants.STATS_NAME);
+    }
+
+    @Test
+    public void testGetDescription() {
+        assertEquals(stats.getDescription(), CommandConstants.STATS_DESCRIPTION);
+    }
+
+    @Test
+    public void testGetHelp() {
+        assertEquals(stats.getHelp(), CommandConstants.STATS_HELP);
+    }
+
+    @Test
+    public void testRequiresFile() {
+        assertFalse(stats.requiresFile());
+    }
+
+    @Test
+    public void testExecute() {
+        setupStreams();
+        String response = "stats\n";
+        when(simulationManager.getStats()).thenReturn(response);
+        String[] input = {"stats"};
+        stats.execute(input, simulationManager);
+        assertEquals(response, outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_reset() {
+        setupStreams();
+        String[] input = {"stats", "reset"};
+        stats.execute(input, simulationManager);
+        verify(simulationManager).resetStats();
+        assertEquals(CommandConstants.STATS_RESET + "\n", outContent.toString());
+        restoreStreams();
+    }
+
+    @Test
+    public void testExecute_invalidArgument() {
+        setupStreams();
+        String[] input = {"stats", "clear"};
+        stats.execute(input, simulationManager);
+        verify(simulationManager, never()).resetStats();
+        assertEquals(CommandConstants.STATS_HELP + "\n", outContent.toString());
+        restoreStreams();
+    }
+}
@@ -60,4 +60,81 @@ public class TestSessionLog {
             new String(Files.readAllBytes(Paths.get(tmpfile2.getAbsolutePath())))
         );
     }
+
+    @Test
+    public void testRestore_skip() throws IOException {
+        File tmpfile1 = tmpdir.newFile("testRestoreSkip1");
+        SessionLog prevLog = new SessionLog(tmpfile1.getAbsolutePath());
+        prevLog.append(new String[]{"foo", "bar"});
+        prevLog.append(new String[]{"baz"});
+        assertEquals(2, prevLog.getLength());
+
+        File tmpfile2 = tmpdir.newFile("testRestoreSkip2");
+        SessionLog log = new SessionLog(tmpfile2.getAbsolutePath());
+
+        // Skipped lines are not executed, but are still copied to the new log.
+        SimulationManager simulationManager = new SimulationManager();
+        prevLog.restore(simulationManager, log, 1);
+
+        assertEquals(
+            "foo bar\nbaz\n",
+            new String(Files.readAllBytes(Paths.get(tmpfile2.getAbsolutePath())))
+        );
+        assertEquals(2, log.getLength());
+    }
+
+    @Test
+    public void testAppend_exitDurability() throws IOException {
+        File tmpfile = tmpdir.newFile("testAppendExit");
+        SessionLog log = newLog(tmpfile, SessionLog.Durability.EXIT, SessionLog.DEFAULT_ROTATE_BYTES);
+        log.append(new String[]{"step", "5"});
+        assertEquals("", new String(Files.readAllBytes(Paths.get(tmpfile.getAbsolutePath()))));
+
+        log.close();
+        assertEquals("step 5\n", new String(Files.readAllBytes(Paths.get(tmpfile.getAbsolutePath()))));
+    }
+
+    @Test
+    public void testAppend_rotate() throws IOException {
+        File tmpfile = tmpdir.newFile("testRotate");
+        SessionLog log = newLog(tmpfile, SessionLog.Durability.COMMAND, 10);
+        log.append(new String[]{"load", "model.als"});
+        log.append(new String[]{"step"});
+        log.append(new String[]{"step", "4"});
+        log.close();
+
+        // The first command filled the first segment, and the next two the second.
+        assertTrue(SessionLog.getSegment(tmpfile, 1, true).exists());
+        assertFalse(SessionLog.getSegment(tmpfile, 1, false).exists());
+        assertTrue(SessionLog.getSegment(tmpfile, 2, true).exists());
+        assertEquals("", new String(Files.readAllBytes(Paths.get(tmpfile.getAbsolutePath()))));
+        assertEquals(3, log.getLength());
+
+        File tmpfile2 = tmpdir.newFile("testRotate2");
+        SessionLog newLog = newLog(tmpfile2, SessionLog.Durability.COMMAND, SessionLog.DEFAULT_ROTATE_BYTES);
+        new SessionLog(tmpfile.getAbsolutePath()).restore(new SimulationManager(), newLog, 3);
+        assertEquals(
+            "load model.als\nstep\nstep 4\n",
+            new String(Files.readAllBytes(Paths.get(tmpfile2.getAbsolutePath())))
+        );
+    }
+
+    @Test
+    public void testRestore_uncompressedSegment() throws IOException {
+        File tmpfile = tmpdir.newFile("testRestoreSegment");
+        Files.write(SessionLog.getSegment(tmpfile, 1, false).toPath(), "foo\n".getBytes());
+        Files.write(tmpfile.toPath(), "bar\n".getBytes());
+
+        File tmpfile2 = tmpdir.newFile("testRestoreSegment2");
+        SessionLog log = new SessionLog(tmpfile2.getAbsolutePath());
+        new SessionLog(tmpfile.getAbsolutePath()).restore(new SimulationManager(), log, 2);
+        assertEquals("foo\nbar\n", new String(Files.readAllBytes(Paths.get(tmpfile2.getAbsolutePath()))));
+    }
+
+    // Creates a log at file, which is otherwise named after the current time.
+    private SessionLog newLog(File file, SessionLog.Durability durability, long rotateBytes) throws IOException {
+        SessionLog log = new SessionLog(file.getAbsolutePath());
+        log.create(durability, rotateBytes);
+        return log;
+    }
 }
@@ -0,0 +1,141 @@
+package simulation;
+
+import commands.CommandConstants;
+import state.StateDiff;
+import state.StateNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestAldbSession {
+    private final AldbSession session = new AldbSession();
+    private final List<StateNode[]> changes = new ArrayList<>();
+    private final List<String> messages = new ArrayList<>();
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    public TestAldbSession() {
+        session.addListener(new SessionListener() {
+            public void stateChanged(StateNode previous, StateNode current) {
+                changes.add(new StateNode[] { previous, current });
+            }
+
+            public void message(String message) {
+                messages.add(message);
+            }
+        });
+    }
+
+    @Test
+    public void testNoModelLoaded() {
+        assertNull(session.step());
+        assertNull(session.until(10));
+        assertNull(session.alt());
+        assertNull(session.currentState());
+        assertNull(session.diff());
+        assertTrue(session.path().isEmpty());
+        assertTrue(changes.isEmpty());
+        assertEquals(Arrays.asList(
+            CommandConstants.NO_MODEL_LOADED, CommandConstants.NO_MODEL_LOADED, CommandConstants.NO_MODEL_LOADED
+        ), messages);
+    }
+
+    @Test
+    public void testStep() throws IOException {
+        StateNode initial = session.load(loadModel("models/switch.als"));
+        assertNotNull(initial);
+        assertEquals(Arrays.asList("On"), initial.getValuesForField("a"));
+
+        StateNode next = session.step();
+        assertEquals(Arrays.asList("Off"), next.getValuesForField("a"));
+        assertEquals(Arrays.asList("On"), next.getValuesForField("b"));
+        assertSame(next, session.currentState());
+        assertEquals(Arrays.asList(initial, next), session.path());
+        assertEquals(2, session.graph().size());
+
+        assertEquals(2, changes.size());
+        assertNull(changes.get(0)[0]);
+        assertSame(initial, changes.get(1)[0]);
+        assertSame(next, changes.get(1)[1]);
+        assertTrue(messages.isEmpty());
+    }
+
+    @Test
+    public void testStep_invalid() throws IOException {
+        session.load(loadModel("models/switch.als"));
+        assertNull(session.step(0));
+        assertNull(session.step(1, Arrays.asList("c = On")));
+        assertEquals(Arrays.asList(
+            CommandConstants.GR_ONE_ERROR, String.format(CommandConstants.INVALID_CONSTRAINT, "c = On")
+        ), messages);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void testUntil() throws IOException {
+        session.load(loadModel("models/switch.als"));
+        assertTrue(session.addBreakpoint("b = On"));
+        StateNode state = session.until(10);
+        assertEquals(Arrays.asList("On"), state.getValuesForField("b"));
+        assertEquals(2, session.path().size());
+    }
+
+    @Test
+    public void testBackAndInit() throws IOException {
+        StateNode initial = session.load(loadModel("models/switch.als"));
+        StateNode first = session.step();
+        session.step(2);
+        assertEquals(first, session.back(2));
+        assertEquals(2, session.path().size());
+        assertEquals(initial, session.init());
+        assertEquals(1, session.path().size());
+    }
+
+    @Test
+    public void testDiff() throws IOException {
+        session.load(loadModel("models/switch.als"));
+        assertEquals(2, session.diff().getChanges().size());
+
+        session.step();
+        StateDiff diff = session.diff();
+        assertEquals(2, diff.getChanges().size());
+        assertEquals(Arrays.asList("Off"), diff.getChange("a").getAdded());
+        assertEquals(Arrays.asList("On"), diff.getChange("a").getRemoved());
+    }
+
+    @Test
+    public void testNothingPrinted() throws IOException {
+        ByteArrayOutputStream outContent = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(outContent));
+        try {
+            session.load(new File("nonexistant-file"));
+            session.step();
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertEquals("", outContent.toString());
+        assertFalse(messages.isEmpty());
+    }
+
+    private File loadModel(String modelPath) throws IOException {
+        File file = new File(modelPath);
+        File modelFile = tempFolder.newFile(String.format("test_%s.als", file.getName()));
+        Files.copy(file.toPath(), modelFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return modelFile;
+    }
+}
@@ -0,0 +1,59 @@
+package simulation;
+
+import alloy.AlloyInterface;
+import edu.mit.csail.sdg.alloy4.Err;
+import edu.mit.csail.sdg.translator.A4Solution;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TestBoundedSearch {
+    // Satisfiable for every scope of at least 3.
+    private static final String MODEL = "sig A {}\nfact { #A >= 3 }\nrun {} for %d A";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testFindShortest() throws Err {
+        Map<A4Solution, Integer> bounds = new ConcurrentHashMap<>();
+        A4Solution sol = new BoundedSearch(4).findShortest(6, createSolver(bounds));
+        assertNotNull(sol);
+        assertTrue(sol.satisfiable());
+        assertEquals(3, bounds.get(sol));
+    }
+
+    @Test
+    public void testFindShortest_unsatisfiable() throws Err {
+        Map<A4Solution, Integer> bounds = new ConcurrentHashMap<>();
+        assertNull(new BoundedSearch(4).findShortest(2, createSolver(bounds)));
+        assertEquals(2, bounds.size());
+    }
+
+    @Test
+    public void testFindShortest_failure() {
+        assertThrows(Err.class, () -> {
+            new BoundedSearch(2).findShortest(3, bound -> AlloyInterface.run(
+                AlloyInterface.compileFromStringUncached("}{", new File(tempFolder.getRoot(), "_tmp_test.als").getPath())
+            ));
+        });
+    }
+
+    private BoundedSearch.BoundSolver createSolver(Map<A4Solution, Integer> bounds) {
+        String modelPath = new File(tempFolder.getRoot(), "_tmp_test.als").getPath();
+        return bound -> {
+            A4Solution sol = AlloyInterface.run(
+                AlloyInterface.compileFromStringUncached(String.format(MODEL, bound), modelPath)
+            );
+            bounds.put(sol, bound);
+            return sol;
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package simulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestGraphRenderService {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testRunWhenRendered_afterSubmittedGraphs() throws Exception {
+        GraphRenderService service = new GraphRenderService();
+        String prefix = new File(tempFolder.getRoot(), "state_tree").getPath();
+        AtomicLong renderedBeforeCallback = new AtomicLong(-1);
+
+        for (int i = 0; i < 5; i++) {
+            service.submit(prefix, "digraph G {S" + i + "\n}\n");
+        }
+        service.runWhenRendered(() -> renderedBeforeCallback.set(service.getRenderCount()));
+        service.awaitIdle();
+
+        assertEquals(5, service.getRequestCount());
+        // Requests that arrive during a render are coalesced into a single render of the latest graph.
+        assertTrue(service.getRenderCount() >= 1 && service.getRenderCount() <= 5);
+        assertTrue(renderedBeforeCallback.get() >= 1);
+        assertTrue(new File(prefix + ".dot").exists());
+    }
+
+    @Test
+    public void testAddListener_receivesRenderedGraphs() throws Exception {
+        GraphRenderService service = new GraphRenderService();
+        List<String> rendered = new ArrayList<>();
+        service.addListener(graph -> rendered.add(graph.getName()));
+
+        service.submit("state_tree", () -> new RenderedGraph("state_tree", null, null));
+        service.submit("broken", () -> {
+            throw new Exception("layout failed");
+        });
+        service.awaitIdle();
+        service.submit("control_states", () -> new RenderedGraph("control_states", null, null));
+        service.awaitIdle();
+
+        // Failed renders are reported but not passed to listeners.
+        assertEquals(List.of("state_tree", "control_states"), rendered);
+    }
+
+    @Test
+    public void testSetMessageListener_receivesFailures() throws Exception {
+        GraphRenderService service = new GraphRenderService();
+        List<String> messages = new ArrayList<>();
+        service.setMessageListener(messages::add);
+        service.addListener(graph -> {
+            throw new IllegalStateException("view closed");
+        });
+
+        service.submit("broken", () -> {
+            throw new Exception("layout failed");
+        });
+        service.submit("state_tree", () -> new RenderedGraph("state_tree", null, null));
+        service.awaitIdle();
+
+        assertEquals(2, messages.size());
+        assertEquals("error. Could not render broken: layout failed", messages.get(0));
+        assertTrue(messages.get(1).startsWith("error. Could not show state_tree: "));
+        assertTrue(messages.get(1).contains("view closed"));
+    }
+
+    @Test
+    public void testAwaitIdle_nothingSubmitted() throws Exception {
+        GraphRenderService service = new GraphRenderService();
+        service.awaitIdle();
+        assertEquals(0, service.getRenderCount());
+    }
+}
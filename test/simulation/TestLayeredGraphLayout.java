@@ -0,0 +1,116 @@
+package simulation;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Test;
+
+public class TestLayeredGraphLayout {
+    @Test
+    public void testRanks() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addNode("S1", null);
+        layout.addNode("S2", null);
+        layout.addEdge("S1", "S2", "");
+        layout.addNode("S3", null);
+        layout.addEdge("S2", "S3", "");
+        // Edges back to an existing node do not change its rank.
+        layout.addEdge("S3", "S1", "");
+        layout.addNode("S4", null);
+
+        assertEquals(0, layout.getRank("S1"));
+        assertEquals(1, layout.getRank("S2"));
+        assertEquals(2, layout.getRank("S3"));
+        // Nodes without incoming edges are placed in the top rank.
+        assertEquals(0, layout.getRank("S4"));
+        assertEquals(-1, layout.getRank("S5"));
+    }
+
+    @Test
+    public void testRanks_nodeAddedWithEdgeAfterLayout() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addNode("S1", null);
+        layout.toJson(null);
+        // A layout between adding a node and its edge must not place it in the top rank.
+        layout.addNode("S2", null, "S1", "t1");
+        layout.toJson(null);
+        assertEquals(1, layout.getRank("S2"));
+        assertEquals("t1", layout.toJson(null).getJSONArray("edges").getJSONObject(0).getString("label"));
+    }
+
+    @Test
+    public void testOrder_barycenter() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addEdge("S1", "S2", "");
+        layout.addEdge("S1", "S3", "");
+        layout.addEdge("S3", "S4", "");
+        // S5 is added after S4, but its predecessor is to the left of S4's.
+        layout.addEdge("S2", "S5", "");
+
+        assertEquals(0, layout.getOrder("S5"));
+        assertEquals(1, layout.getOrder("S4"));
+    }
+
+    @Test
+    public void testIncrementalRelayout() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addEdge("S1", "S2", "");
+        layout.addEdge("S2", "S3", "");
+        layout.addEdge("S3", "S4", "");
+        layout.toJson(null);
+        long reordered = layout.getReorderedRankCount();
+
+        // Appending below the deepest rank only lays out the new rank.
+        layout.addEdge("S4", "S5", "");
+        layout.toJson(null);
+        assertEquals(reordered + 1, layout.getReorderedRankCount());
+    }
+
+    @Test
+    public void testToJson() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addNode("S1", "green");
+        layout.addNode("S2", null);
+        layout.addEdge("S1", "S2", "t1");
+        layout.addEdge("S2", "S1", "");
+
+        JSONObject json = layout.toJson("S2");
+        JSONArray objects = json.getJSONArray("objects");
+        JSONArray edges = json.getJSONArray("edges");
+        assertEquals(2, objects.length());
+        assertEquals(2, edges.length());
+
+        // JsonDrawing reads the graph height from the third drawing operation of the graph.
+        double height = json.getJSONArray("_draw_").getJSONObject(2).getJSONArray("points").getJSONArray(1).getDouble(1);
+        JSONObject s1 = objects.getJSONObject(0);
+        JSONObject s2 = objects.getJSONObject(1);
+        double s1y = s1.getJSONArray("_draw_").getJSONObject(1).getJSONArray("rect").getDouble(1);
+        double s2y = s2.getJSONArray("_draw_").getJSONObject(1).getJSONArray("rect").getDouble(1);
+        assertTrue(s1y > s2y && s1y < height);
+        assertEquals("#00ff00", s1.getJSONArray("_draw_").getJSONObject(0).getString("color"));
+        assertEquals("S1", s1.getJSONArray("_ldraw_").getJSONObject(2).getString("text"));
+        assertFalse(s1.has("fillcolor"));
+        assertEquals("yellow", s2.getString("fillcolor"));
+
+        JSONObject edge = edges.getJSONObject(0);
+        assertEquals(0, edge.getInt("tail"));
+        assertEquals(1, edge.getInt("head"));
+        assertEquals("t1", edge.getString("label"));
+        assertEquals(3, edge.getJSONArray("_hdraw_").getJSONObject(3).getJSONArray("points").length());
+        assertFalse(edges.getJSONObject(1).has("label"));
+    }
+
+    @Test
+    public void testClear() {
+        LayeredGraphLayout layout = new LayeredGraphLayout();
+        layout.addEdge("S1", "S2", "");
+        layout.toJson(null);
+        layout.clear();
+        assertEquals(0, layout.getReorderedRankCount());
+        JSONObject json = layout.toJson(null);
+        assertEquals(0, json.getJSONArray("objects").length());
+        assertEquals(0, json.getJSONArray("edges").length());
+    }
+}
@@ -5,6 +5,8 @@ import alloy.ParsingConf;
 
 import edu.mit.csail.sdg.translator.A4Solution;
 
+import state.StateNode;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.After;
@@ -23,6 +25,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -149,6 +152,35 @@ public class TestSimulationManager {
         assertEquals("", sm.getHistory(3));
     }
 
+    @Test
+    public void testRenderPolicy_headless() throws IOException {
+        initializeTestWithModelPath("models/switch.als");
+        sm.setRenderPolicy(RenderPolicy.HEADLESS);
+        assertTrue(sm.initialize(modelFile, false));
+        assertTrue(sm.performStep(2));
+        sm.performReverseStep(1);
+        assertEquals(0, sm.getRenderRequestCount());
+        // The graph can still be exported on request.
+        assertTrue(sm.getDOTString().contains("S1 -> S2"));
+    }
+
+    @Test
+    public void testRenderDeferred() throws IOException {
+        initializeTestWithModelPath("models/switch.als");
+        assertTrue(sm.initialize(modelFile, false));
+        long requests = sm.getRenderRequestCount();
+
+        sm.deferRendering();
+        assertTrue(sm.performStep(1));
+        assertTrue(sm.performStep(1));
+        assertEquals(requests, sm.getRenderRequestCount());
+
+        // The changes are rendered once, when rendering resumes.
+        sm.resumeRendering();
+        assertFalse(sm.isRenderingDeferred());
+        assertEquals(requests + 1, sm.getRenderRequestCount());
+    }
+
     @Test
     public void testInitializeWithTrace() throws IOException {
         File traceFile = createTrace();
@@ -767,6 +799,84 @@ public class TestSimulationManager {
         assertFalse(sm.selectAlternatePath(true));
     }
 
+    @Test
+    public void testSuccessorCap() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        sm.setSuccessorCap(16);
+        assertTrue(sm.performStep(1));
+        // The farmer crosses alone or with one of the three objects.
+        assertEquals(5, sm.getStateGraph().size());
+
+        sm.initialize(modelFile, false);
+        sm.setSuccessorCap(2);
+        assertTrue(sm.performStep(1));
+        assertEquals(3, sm.getStateGraph().size());
+    }
+
+    @Test
+    public void testSuccessorCap_selectAlternatePathWithoutSolving() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        sm.setSuccessorCap(16);
+        sm.performStep(1);
+        StateNode first = sm.getCurrentNode();
+
+        long solves = AlloyInterface.getSolveCount();
+        List<StateNode> visited = new ArrayList<>(Arrays.asList(first));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(sm.selectAlternatePath(false));
+            visited.add(sm.getCurrentNode());
+        }
+        assertFalse(sm.selectAlternatePath(false));
+        assertEquals(4, new HashSet<>(visited).size());
+
+        assertTrue(sm.selectAlternatePath(true));
+        assertEquals(visited.get(2), sm.getCurrentNode());
+        assertTrue(sm.selectAlternatePath(true));
+        assertTrue(sm.selectAlternatePath(true));
+        assertEquals(first, sm.getCurrentNode());
+        assertFalse(sm.selectAlternatePath(true));
+        assertEquals(solves, AlloyInterface.getSolveCount());
+        assertEquals(5, sm.getStateGraph().size());
+    }
+
+    @Test
+    public void testEnumerateSuccessors() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        List<StateNode> found = new ArrayList<>();
+        assertEquals(4, sm.enumerateSuccessors(16, found::add));
+        // Every solve blocks the states found before it, so no state is passed twice.
+        assertEquals(4, new HashSet<>(found).size());
+        assertEquals(5, sm.getStateGraph().size());
+    }
+
+    @Test
+    public void testEnumerateSuccessors_cap() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        long solves = AlloyInterface.getSolveCount();
+        assertEquals(3, sm.enumerateSuccessors(3, node -> true));
+        assertEquals(solves + 3, AlloyInterface.getSolveCount());
+        assertEquals(4, sm.getStateGraph().size());
+    }
+
+    @Test
+    public void testEnumerateSuccessors_stopEarly() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        List<StateNode> found = new ArrayList<>();
+        assertEquals(2, sm.enumerateSuccessors(16, node -> found.add(node) && found.size() < 2));
+        assertEquals(2, found.size());
+        assertEquals(3, sm.getStateGraph().size());
+    }
+
+    @Test
+    public void testEnumerateSuccessors_notInitialized() {
+        assertEquals(-1, sm.enumerateSuccessors(16, node -> true));
+    }
+
     @Test
     public void testPerformUntil() throws IOException {
         initializeTestWithModelPath("models/switch.als");
@@ -787,6 +897,52 @@ public class TestSimulationManager {
         assertEquals(expectedCurrentState, sm.getCurrentStateString());
     }
 
+    @Test
+    public void testPerformUntil_shortestHit() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        ConstraintManager cm = sm.getConstraintManager();
+        cm.addConstraint("far = Object");
+        // The river can be crossed in no fewer than 7 transitions, and a shortest path never revisits a state.
+        String expectedCurrentState = String.join("\n",
+            "",
+            "S8",
+            "----",
+            "far: { Chicken, Farmer, Fox, Grain }",
+            "near: {  }",
+            ""
+        );
+
+        assertTrue(sm.performUntil(20));
+        assertEquals(expectedCurrentState, sm.getCurrentStateString());
+    }
+
+    @Test
+    public void testPerformUntil_repeatedParallel() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        sm.setSearchThreads(16);
+        sm.getConstraintManager().addConstraint("far = Object");
+
+        // Bounds larger than the shortest path are superseded on every search, and must not use up the
+        // solves that later searches are allowed to run.
+        for (int i = 0; i <= Runtime.getRuntime().availableProcessors(); i++) {
+            assertTrue(sm.setToInit());
+            assertTrue(sm.performUntil(16));
+            assertEquals(0, AlloyInterface.getAbandonedSolves());
+        }
+    }
+
+    @Test
+    public void testPerformUntil_notReachableWithinLimit() throws IOException {
+        initializeTestWithModelPath("models/river_crossing.als");
+        sm.initialize(modelFile, false);
+        ConstraintManager cm = sm.getConstraintManager();
+        cm.addConstraint("far = Object");
+
+        assertFalse(sm.performUntil(6));
+    }
+
     @Test
     public void testSetToInit() throws IOException {
         initializeTestWithModelPath("models/even_odd.als");
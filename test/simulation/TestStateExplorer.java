@@ -0,0 +1,80 @@
+package simulation;
+
+import edu.mit.csail.sdg.ast.Sig.*;
+
+import alloy.SigData;
+import state.StateNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestStateExplorer {
+    private final SigData sigData = new SigData(createNewSig());
+
+    // Each state is a number; the successors of n are 2n mod 7 and 3n mod 7.
+    private final StateExplorer.Solver solver = node -> {
+        int n = Integer.parseInt(node.getValuesForField("g").get(0));
+        return Arrays.asList(createNewStateNode((2 * n) % 7), createNewStateNode((3 * n) % 7));
+    };
+
+    @Test
+    public void testExplore() throws Exception {
+        AtomicInteger solvers = new AtomicInteger();
+        StateExplorer explorer = new StateExplorer(() -> {
+            solvers.incrementAndGet();
+            return solver;
+        }, 4);
+        List<Integer> frontierSizes = new ArrayList<>();
+
+        Map<StateNode, List<StateNode>> edges = explorer.explore(
+            createNewStateNode(1), 10, 100, (depth, states, frontier, statesPerSecond) -> frontierSizes.add(frontier)
+        );
+
+        // All of 1..6 are reachable from 1, and each is explored once.
+        assertEquals(6, edges.size());
+        assertEquals(createNewStateNode(1), edges.keySet().iterator().next());
+        assertEquals(Arrays.asList(createNewStateNode(2), createNewStateNode(3)), edges.get(createNewStateNode(1)));
+        assertEquals(Arrays.asList(2, 2, 1, 0), frontierSizes);
+        assertTrue(solvers.get() >= 1 && solvers.get() <= 4);
+    }
+
+    @Test
+    public void testExplore_maxStates() throws Exception {
+        StateExplorer explorer = new StateExplorer(() -> solver, 2);
+
+        Map<StateNode, List<StateNode>> edges = explorer.explore(createNewStateNode(1), 10, 3, null);
+
+        // Exploration stops once 3 states have been found, and no other states are part of the result.
+        assertEquals(1, edges.size());
+        assertEquals(2, edges.get(createNewStateNode(1)).size());
+    }
+
+    @Test
+    public void testExplore_depth() throws Exception {
+        StateExplorer explorer = new StateExplorer(() -> solver, 2);
+
+        Map<StateNode, List<StateNode>> edges = explorer.explore(createNewStateNode(1), 1, 100, null);
+
+        assertEquals(1, edges.size());
+    }
+
+    private StateNode createNewStateNode(int value) {
+        StateNode node = new StateNode(sigData, null);
+        node.addValueToField("g", String.valueOf(value));
+        return node;
+    }
+
+    private PrimSig createNewSig() {
+        PrimSig sigA = new PrimSig("A");
+        PrimSig sigB = new PrimSig("B");
+        sigA.addField("g", sigB);
+        return sigA;
+    }
+}
@@ -0,0 +1,75 @@
+package simulation;
+
+import edu.mit.csail.sdg.ast.Sig.*;
+
+import alloy.SigData;
+import state.StateNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestStepPrefetcher {
+    private final StepPrefetcher prefetcher = new StepPrefetcher();
+
+    @Test
+    public void testTakeStep_disabled() {
+        AtomicInteger solves = new AtomicInteger();
+        StateNode node = createNewStateNode("val1");
+        prefetcher.prefetch(node, () -> {
+            solves.incrementAndGet();
+            return null;
+        }, null);
+
+        assertNull(prefetcher.takeStep(node));
+        assertEquals(0, solves.get());
+        assertEquals(0, prefetcher.getStepRequests());
+    }
+
+    @Test
+    public void testPrefetch_sameNodeSolvedOnce() {
+        AtomicInteger solves = new AtomicInteger();
+        prefetcher.setEnabled(true);
+        StepPrefetcher.Solve step = () -> {
+            solves.incrementAndGet();
+            return null;
+        };
+
+        // An equal node does not restart a prefetch that is still needed.
+        prefetcher.prefetch(createNewStateNode("val1"), step, null);
+        prefetcher.prefetch(createNewStateNode("val1"), step, null);
+        prefetcher.takeStep(createNewStateNode("val1"));
+        assertEquals(1, solves.get());
+
+        prefetcher.prefetch(createNewStateNode("val1"), step, null);
+        prefetcher.prefetch(createNewStateNode("val2"), step, null);
+        prefetcher.takeStep(createNewStateNode("val2"));
+        assertTrue(solves.get() >= 2);
+    }
+
+    @Test
+    public void testTakeStep_otherNode() {
+        AtomicInteger solves = new AtomicInteger();
+        prefetcher.setEnabled(true);
+        prefetcher.prefetch(createNewStateNode("val1"), () -> {
+            solves.incrementAndGet();
+            return null;
+        }, null);
+
+        assertNull(prefetcher.takeStep(createNewStateNode("val2")));
+        assertEquals(1, prefetcher.getStepRequests());
+        assertEquals(0, prefetcher.getStepHits());
+        assertEquals("step: 0 of 1 prefetched (0%), alt: 0 of 0 prefetched (-)", prefetcher.getStats());
+    }
+
+    private StateNode createNewStateNode(String value) {
+        PrimSig sigA = new PrimSig("A");
+        PrimSig sigB = new PrimSig("B");
+        sigA.addField("g", sigB);
+        StateNode node = new StateNode(new SigData(sigA), null);
+        node.addValueToField("g", value);
+        return node;
+    }
+}
@@ -0,0 +1,77 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig.*;
+
+import alloy.SigData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestStateCanonicalizer {
+    private SigData sigData;
+    private StateDictionary dictionary;
+    private StateCanonicalizer canonicalizer;
+
+    @Before
+    public void init() {
+        sigData = new SigData(createNewSig());
+        dictionary = new StateDictionary(sigData);
+        Map<String, Integer> sigScopes = new HashMap<>();
+        sigScopes.put("Chair", 2);
+        sigScopes.put("Player", 3);
+        sigScopes.put("Int", 4);
+        canonicalizer = new StateCanonicalizer(sigScopes);
+    }
+
+    @Test
+    public void testCanonicalize_symmetricStates() {
+        StateNode a = createNode("Chair_0->Player_0", "Player_0", "Player_1", "Player_2");
+        StateNode b = createNode("Chair_1->Player_2", "Player_0", "Player_1", "Player_2");
+        assertNotEquals(a, b);
+        assertEquals(canonicalizer.canonicalize(a), canonicalizer.canonicalize(b));
+    }
+
+    @Test
+    public void testCanonicalize_asymmetricStates() {
+        StateNode a = createNode("Chair_0->Player_0", "Player_0", "Player_1");
+        StateNode b = createNode("Chair_0->Player_2", "Player_0", "Player_1");
+        assertNotEquals(canonicalizer.canonicalize(a), canonicalizer.canonicalize(b));
+    }
+
+    @Test
+    public void testCanonicalize_tiedAtoms() {
+        // Every atom of a cycle looks the same, so the canonical form must search their orders.
+        StateNode a = createNode("Player_0->Player_1", "Player_1->Player_2", "Player_2->Player_0");
+        StateNode b = createNode("Player_0->Player_2", "Player_2->Player_1", "Player_1->Player_0");
+        StateNode c = createNode("Player_0->Player_1", "Player_1->Player_0", "Player_2->Player_2");
+        assertEquals(canonicalizer.canonicalize(a), canonicalizer.canonicalize(b));
+        assertNotEquals(canonicalizer.canonicalize(a), canonicalizer.canonicalize(c));
+    }
+
+    @Test
+    public void testCanonicalize_noSymmetricAtoms() {
+        // Int atoms are not interchangeable.
+        StateNode a = createNode("Int_0", "1");
+        assertSame(a, canonicalizer.canonicalize(a));
+    }
+
+    private StateNode createNode(String... values) {
+        StateNode node = new StateNode(sigData, null, dictionary);
+        for (String value : values) {
+            node.addValueToField("g", value);
+        }
+        return node;
+    }
+
+    private PrimSig createNewSig() {
+        PrimSig sigA = new PrimSig("A");
+        PrimSig sigB = new PrimSig("B");
+        sigA.addField("g", sigB);
+        return sigA;
+    }
+}
@@ -0,0 +1,70 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig.*;
+
+import alloy.SigData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestStateDiff {
+    private SigData sigData = new SigData(createNewSig());
+    private StateDictionary dictionary = new StateDictionary(sigData);
+
+    @Test
+    public void testBetween() {
+        StateNode from = createNode(new String[] { "B$0", "B$1" }, new String[] { "C$0" });
+        StateNode to = createNode(new String[] { "B$1", "B$2" }, new String[] { "C$0" });
+
+        StateDiff diff = StateDiff.between(from, to);
+        assertSame(from, diff.getFrom());
+        assertSame(to, diff.getTo());
+        assertEquals(1, diff.getChanges().size());
+        assertNull(diff.getChange("h"));
+
+        StateDiff.FieldChange change = diff.getChange("g");
+        assertEquals(Arrays.asList("B$0", "B$1"), change.getBefore());
+        assertEquals(Arrays.asList("B$1", "B$2"), change.getAfter());
+        assertEquals(Arrays.asList("B$2"), change.getAdded());
+        assertEquals(Arrays.asList("B$0"), change.getRemoved());
+    }
+
+    @Test
+    public void testBetween_same() {
+        StateNode from = createNode(new String[] { "B$0" }, new String[] {});
+        StateNode to = createNode(new String[] { "B$0" }, new String[] {});
+        assertTrue(StateDiff.between(from, to).isEmpty());
+    }
+
+    @Test
+    public void testBetween_noPrevious() {
+        StateNode to = createNode(new String[] { "B$0" }, new String[] {});
+        StateDiff diff = StateDiff.between(null, to);
+        assertEquals(1, diff.getChanges().size());
+        assertEquals(Arrays.asList("B$0"), diff.getChange("g").getAdded());
+        assertTrue(diff.getChange("g").getRemoved().isEmpty());
+    }
+
+    private StateNode createNode(String[] g, String[] h) {
+        StateNode node = new StateNode(sigData, null, dictionary);
+        for (String value : g) {
+            node.addValueToField("g", value);
+        }
+        for (String value : h) {
+            node.addValueToField("h", value);
+        }
+        return node;
+    }
+
+    private PrimSig createNewSig() {
+        PrimSig sigA = new PrimSig("A");
+        PrimSig sigB = new PrimSig("B");
+        PrimSig sigC = new PrimSig("C");
+        sigA.addField("g", sigB);
+        sigA.addField("h", sigC);
+        return sigA;
+    }
+}
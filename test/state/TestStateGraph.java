@@ -9,7 +9,9 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TestStateGraph {
     private StateGraph stateGraph = new StateGraph();
@@ -109,6 +111,145 @@ public class TestStateGraph {
         assertEquals(4, stateGraph.size());
     }
 
+    @Test
+    public void testGetNodeById() {
+        List<StateNode> initialNodes = createNewStateNodeList(1);
+        stateGraph.initWithNodes(initialNodes);
+        SigData sigData = new SigData(createNewSig());
+        StateNode a = new StateNode(sigData, null);
+        StateNode b = new StateNode(sigData, null);
+        a.addValueToField("g", "val1");
+        b.addValueToField("g", "val2");
+        List<StateNode> newNodes = new ArrayList<>();
+        newNodes.add(a);
+        newNodes.add(b);
+        stateGraph.addNodes(initialNodes.get(0), newNodes);
+
+        assertSame(initialNodes.get(0), stateGraph.getNodeById(1));
+        assertSame(a, stateGraph.getNodeById(2));
+        assertSame(b, stateGraph.getNodeById(3));
+        assertNull(stateGraph.getNodeById(0));
+        assertNull(stateGraph.getNodeById(4));
+    }
+
+    @Test
+    public void testAddNodes_existingNodeIdentifier() {
+        List<StateNode> initialNodes = createNewStateNodeList(1);
+        initialNodes.get(0).addValueToField("g", "val1");
+        stateGraph.initWithNodes(initialNodes);
+        SigData sigData = new SigData(createNewSig());
+        StateNode a = new StateNode(sigData, null);
+        StateNode b = new StateNode(sigData, null);
+        a.addValueToField("g", "val2");
+        b.addValueToField("g", "val1");
+        List<StateNode> newNodes = new ArrayList<>();
+        newNodes.add(a);
+        newNodes.add(b);
+        stateGraph.addNodes(initialNodes.get(0), newNodes);
+
+        // b has the same state as the initial node, so it is not added and takes on its identifier.
+        assertEquals(2, stateGraph.size());
+        assertEquals(1, b.getIdentifier());
+    }
+
+    @Test
+    public void testAddSuccessors() {
+        List<StateNode> initialNodes = createNewStateNodeList(1);
+        stateGraph.initWithNodes(initialNodes);
+        SigData sigData = new SigData(createNewSig());
+        StateNode a = new StateNode(sigData, null);
+        StateNode b = new StateNode(sigData, null);
+        StateNode c = new StateNode(sigData, null);
+        a.addValueToField("g", "val1");
+        b.addValueToField("g", "val2");
+        List<StateNode> successors = new ArrayList<>();
+        successors.add(a);
+        successors.add(b);
+        // c has the same state as the start node, so it becomes a self-loop.
+        successors.add(c);
+        String expected = String.join("\n",
+            "digraph graphname {",
+            "\tS1 -> S2",
+            "\tS1 -> S3",
+            "\tS1 -> S1",
+            "\tS2",
+            "\tS3",
+            "}",
+            ""
+        );
+        stateGraph.addSuccessors(initialNodes.get(0), successors);
+        assertEquals(expected, stateGraph.getDOTString());
+        assertEquals(3, stateGraph.size());
+        assertEquals(1, c.getIdentifier());
+    }
+
+    @Test
+    public void testAddSuccessors_canonicalizer() {
+        List<StateNode> initialNodes = createNewStateNodeList(1);
+        stateGraph.initWithNodes(initialNodes);
+        Map<String, Integer> sigScopes = new HashMap<>();
+        sigScopes.put("Player", 2);
+        stateGraph.setCanonicalizer(new StateCanonicalizer(sigScopes));
+        SigData sigData = new SigData(createNewSig());
+        StateNode a = new StateNode(sigData, null);
+        StateNode b = new StateNode(sigData, null);
+        a.addValueToField("g", "Player_0");
+        b.addValueToField("g", "Player_1");
+        List<StateNode> successors = new ArrayList<>();
+        successors.add(a);
+        successors.add(b);
+        stateGraph.addSuccessors(initialNodes.get(0), successors);
+        assertEquals(2, stateGraph.size());
+        assertEquals(2, b.getIdentifier());
+    }
+
+    @Test
+    public void testGetStateTreeDOTString() {
+        List<StateNode> initialNodes = createNewStateNodeList(2);
+        StateNode startNode = initialNodes.get(1);
+        startNode.addValueToField("g", "diff_val");
+        stateGraph.initWithNodes(initialNodes);
+        stateGraph.addNodes(startNode, createNewStateNodeList(1));
+        String expected = String.join("\n",
+            "digraph G {S1",
+            "S2",
+            "S1 -> S2",
+            "S2 -> S1",
+            "S1[style=filled, fillcolor=yellow]",
+            "",
+            "}",
+            ""
+        );
+        assertEquals(expected, stateGraph.getStateTreeDOTString(initialNodes.get(0)));
+
+        stateGraph.initWithNodes(createNewStateNodeList(1));
+        assertEquals("digraph G {S1\n\n}\n", stateGraph.getStateTreeDOTString(null));
+    }
+
+    @Test
+    public void testListener_nodeAddedWithEdge() {
+        List<String> events = new ArrayList<>();
+        stateGraph.addListener(new StateGraphListener() {
+            public void graphCleared() {
+                events.add("cleared");
+            }
+
+            public void nodeAdded(StateNode node, StateNode from) {
+                events.add("S" + node.getIdentifier() + (from == null ? "" : " from S" + from.getIdentifier()));
+            }
+
+            public void stepAdded(StateNode from, StateNode to) {
+                events.add("S" + from.getIdentifier() + " -> S" + to.getIdentifier());
+            }
+        });
+        List<StateNode> initialNodes = createNewStateNodeList(2);
+        initialNodes.get(1).addValueToField("g", "diff_val");
+        stateGraph.initWithNodes(initialNodes);
+        stateGraph.addNodes(initialNodes.get(1), createNewStateNodeList(1));
+
+        assertEquals(List.of("cleared", "S1", "S2 from S1", "S2 -> S1"), events);
+    }
+
     // Create a list with `amount` nodes that are all equal.
     private List<StateNode> createNewStateNodeList(int amount) {
         List<StateNode> nodes = new ArrayList<>();
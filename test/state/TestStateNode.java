@@ -8,6 +8,8 @@ import state.StateNode;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -229,6 +231,69 @@ public class TestStateNode {
         assertFalse(stateNode2.equals(stateNode));
     }
 
+    @Test
+    public void testHashCode_equalStates() {
+        SigData sigData = new SigData(createNewSig());
+        StateNode stateNode2 = new StateNode(sigData, new ParsingConf());
+        stateNode.addValueToField("f", "string1");
+        stateNode.addValueToField("f", "string2");
+        // Insertion order does not affect the state.
+        stateNode2.addValueToField("f", "string2");
+        stateNode2.addValueToField("f", "string1");
+        stateNode2.setIdentifier(7);
+        assertEquals(stateNode, stateNode2);
+        assertEquals(stateNode.getFingerprint(), stateNode2.getFingerprint());
+        assertEquals(stateNode.hashCode(), stateNode2.hashCode());
+    }
+
+    @Test
+    public void testGetFingerprint_updatedOnAddValue() {
+        long emptyFingerprint = stateNode.getFingerprint();
+        stateNode.addValueToField("f", "string1");
+        assertNotEquals(emptyFingerprint, stateNode.getFingerprint());
+    }
+
+    @Test
+    public void testGetFingerprint_valuesInDifferentFields() {
+        SigData sigData = new SigData(createNewSig());
+        StateNode stateNode2 = new StateNode(sigData, new ParsingConf());
+        stateNode.addValueToField("f", "string");
+        stateNode2.addValueToField("g", "string");
+        assertNotEquals(stateNode.getFingerprint(), stateNode2.getFingerprint());
+    }
+
+    @Test
+    public void testEquals_sharedDictionary() {
+        SigData sigData = new SigData(createNewSig());
+        StateDictionary dictionary = new StateDictionary(sigData);
+        StateNode stateNode2 = new StateNode(sigData, new ParsingConf(), dictionary);
+        StateNode stateNode3 = new StateNode(sigData, new ParsingConf(), dictionary);
+        stateNode2.addValueToField("f", "string2");
+        stateNode2.addValueToField("f", "string1");
+        stateNode3.addValueToField("f", "string1");
+        stateNode3.addValueToField("f", "string2");
+        assertEquals(stateNode2, stateNode3);
+        assertEquals(2, dictionary.size());
+
+        // Nodes of different dictionaries are compared by value.
+        stateNode.addValueToField("f", "string1");
+        stateNode.addValueToField("f", "string2");
+        assertEquals(stateNode, stateNode2);
+        assertEquals(stateNode.hashCode(), stateNode2.hashCode());
+
+        stateNode3.addValueToField("g", "string");
+        assertNotEquals(stateNode2, stateNode3);
+    }
+
+    @Test
+    public void testGetValuesForField() {
+        stateNode.addValueToField("f", "string2");
+        stateNode.addValueToField("f", "string1");
+        assertEquals(Arrays.asList("string1", "string2"), stateNode.getValuesForField("f"));
+        assertTrue(stateNode.getValuesForField("g").isEmpty());
+        assertNull(stateNode.getValuesForField("h"));
+    }
+
     @Test
     public void testGetAlloyInitString() {
         String expected = String.join("\n",
@@ -245,6 +310,17 @@ public class TestStateNode {
         assertEquals(expected, stateNode.getAlloyInitString());
     }
 
+    @Test
+    public void testGetAlloyStateConstraints() {
+        String expected = String.join("\n",
+            "\ts.f = string1",
+            "\ts.g = none",
+            ""
+        );
+        stateNode.addValueToField("f", "string1");
+        assertEquals(expected, stateNode.getAlloyStateConstraints());
+    }
+
     @Test
     public void testIdentifier() {
         stateNode.setIdentifier(5);
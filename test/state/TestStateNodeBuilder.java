@@ -0,0 +1,61 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig;
+
+import alloy.ParsingConf;
+import alloy.SigData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestStateNodeBuilder {
+    @Test
+    public void testBuild() {
+        SigData sigData = new SigData(createNewSig());
+        StateDictionary dictionary = new StateDictionary(sigData);
+        StateNodeBuilder builder = new StateNodeBuilder(sigData, new ParsingConf(), dictionary, 2);
+        int f = builder.getFieldIndex("f");
+        int g = builder.getFieldIndex("g");
+        builder.addValue(1, f, "b");
+        builder.addValue(0, g, "string");
+        builder.addValue(1, f, "a");
+        builder.addValue(0, f, "c->a");
+
+        List<StateNode> nodes = builder.build();
+        assertEquals(2, nodes.size());
+
+        StateNode expected0 = new StateNode(sigData, new ParsingConf(), dictionary);
+        expected0.addValueToField("f", "c->a");
+        expected0.addValueToField("g", "string");
+        assertEquals(expected0, nodes.get(0));
+
+        StateNode expected1 = new StateNode(sigData, new ParsingConf(), dictionary);
+        expected1.addValueToField("f", "b");
+        expected1.addValueToField("f", "a");
+        assertEquals(expected1, nodes.get(1));
+        assertEquals(expected1.getStateString(), nodes.get(1).getStateString());
+    }
+
+    @Test
+    public void testAddValue_unknownFieldOrState() {
+        SigData sigData = new SigData(createNewSig());
+        StateNodeBuilder builder = new StateNodeBuilder(sigData, new ParsingConf(), new StateDictionary(sigData), 1);
+        builder.addValue(0, builder.getFieldIndex("h"), "a");
+        builder.addValue(1, builder.getFieldIndex("f"), "a");
+
+        List<StateNode> nodes = builder.build();
+        assertEquals(1, nodes.size());
+        assertEquals(new StateNode(sigData, new ParsingConf()), nodes.get(0));
+    }
+
+    private Sig createNewSig() {
+        Sig sigA = new Sig.PrimSig("A");
+        Sig sigB = new Sig.PrimSig("B");
+        sigA.addField("g", sigB);
+        sigA.addField("f", sigB.lone_arrow_lone(sigB));
+        return sigA;
+    }
+}
@@ -0,0 +1,119 @@
+package state;
+
+import edu.mit.csail.sdg.ast.Sig.*;
+
+import alloy.SigData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestStateSnapshot {
+    private SigData sigData = new SigData(createNewSig());
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        StateDictionary dictionary = new StateDictionary(sigData);
+        List<StateNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StateNode node = new StateNode(sigData, null, dictionary);
+            node.addValueToField("g", "B$" + i);
+            node.storePath(Arrays.asList(1, i + 1));
+            nodes.add(node);
+        }
+        StateGraph graph = new StateGraph();
+        graph.initWithNodes(nodes);
+        StatePath path = new StatePath();
+        path.initWithPath(nodes);
+        path.setPosition(1);
+
+        StateGraph restoredGraph = new StateGraph();
+        StatePath restoredPath = new StatePath();
+        StateDictionary restoredDictionary = roundTrip(dictionary, graph, path, restoredGraph, restoredPath);
+
+        assertEquals(dictionary.size(), restoredDictionary.size());
+        assertEquals(graph.getDOTString(), restoredGraph.getDOTString());
+        assertEquals(3, restoredGraph.size());
+        assertEquals(3, restoredPath.getLength());
+        assertEquals(1, restoredPath.getPosition());
+        assertEquals(path.getPath(), restoredPath.getPath());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(nodes.get(i), restoredPath.getNode(i));
+            assertEquals(Arrays.asList("B$" + i), restoredPath.getNode(i).getValuesForField("g"));
+            // Path nodes that are in the graph are restored as the same objects.
+            assertSame(restoredGraph.getNode(i), restoredPath.getNode(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip_pathCopy() throws IOException {
+        StateDictionary dictionary = new StateDictionary(sigData);
+        StateNode node = new StateNode(sigData, null, dictionary);
+        node.addValueToField("g", "B$0");
+        node.setIdentifier(1);
+        StateGraph graph = new StateGraph();
+        graph.initWithNodes(Arrays.asList(node));
+
+        // A path node that is equal to, but not the same as, a graph node.
+        StateNode copy = new StateNode(sigData, null, dictionary);
+        copy.addValueToField("g", "B$0");
+        copy.setIdentifier(1);
+        StatePath path = new StatePath();
+        path.initWithPath(Arrays.asList(copy));
+
+        StateGraph restoredGraph = new StateGraph();
+        StatePath restoredPath = new StatePath();
+        roundTrip(dictionary, graph, path, restoredGraph, restoredPath);
+
+        assertEquals(1, restoredGraph.size());
+        assertEquals(restoredGraph.getNode(0), restoredPath.getNode(0));
+        assertNotSame(restoredGraph.getNode(0), restoredPath.getNode(0));
+    }
+
+    @Test
+    public void testRead_malformed() {
+        byte[] bytes = new byte[] { 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 5 };
+        assertThrows(IOException.class, () -> StateSnapshot.read(
+            new DataInputStream(new ByteArrayInputStream(bytes)), sigData, null, new StateGraph(), new StatePath()
+        ));
+    }
+
+    @Test
+    public void testString() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        StateSnapshot.writeString(out, null);
+        StateSnapshot.writeString(out, "");
+        StateSnapshot.writeString(out, "S\u00e9");
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNull(StateSnapshot.readString(in));
+        assertEquals("", StateSnapshot.readString(in));
+        assertEquals("S\u00e9", StateSnapshot.readString(in));
+    }
+
+    private StateDictionary roundTrip(
+        StateDictionary dictionary, StateGraph graph, StatePath path, StateGraph restoredGraph, StatePath restoredPath
+    ) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StateSnapshot.write(new DataOutputStream(bytes), dictionary, graph, path);
+        return StateSnapshot.read(
+            new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), sigData, null, restoredGraph, restoredPath
+        );
+    }
+
+    private PrimSig createNewSig() {
+        PrimSig sigA = new PrimSig("A");
+        PrimSig sigB = new PrimSig("B");
+        Field f2 = sigA.addField("g", sigB);
+        return sigA;
+    }
+}